@@ -0,0 +1,107 @@
+package com.properclever.pir.bench;
+
+import com.properclever.pir.domain.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Generates benchmark inputs: rectangles described by {@code vertexCount} points, i.e. the four corners plus
+ * evenly spaced collinear mid-edge points. With {@code "integer"} coordinates every point is on the integer grid,
+ * so validation and containment take the exact long paths; {@code "fractional"} scales the same walk by 0.1,
+ * which no double represents exactly, so they take the tolerant double paths instead.
+ */
+final class BenchmarkShapes {
+
+    private BenchmarkShapes() {
+    }
+
+    /** An axis-aligned rectangle walked with unit steps. */
+    static List<Point> orthogonal(int vertexCount) {
+        return orthogonal(vertexCount, "integer");
+    }
+
+    static List<Point> orthogonal(int vertexCount, String coordinates) {
+        return walk(vertexCount, 1, 0, 0, 2, scale(coordinates));
+    }
+
+    /** A rectangle rotated by atan(3/4), walked with (4,3) and (-3,4) steps. */
+    static List<Point> rotated(int vertexCount) {
+        return rotated(vertexCount, "integer");
+    }
+
+    static List<Point> rotated(int vertexCount, String coordinates) {
+        return walk(vertexCount, 4, 3, -3, 4, scale(coordinates));
+    }
+
+    private static double scale(String coordinates) {
+        return switch (coordinates) {
+            case "integer" -> 1;
+            case "fractional" -> 0.1;
+            default -> throw new IllegalArgumentException("Unknown coordinates: " + coordinates);
+        };
+    }
+
+    /** A point strictly inside the shapes above. */
+    static Point centre(List<Point> shape) {
+        Point a = shape.getFirst();
+        Point c = shape.get(shape.size() / 2);
+        return new Point((a.x() + c.x()) / 2, (a.y() + c.y()) / 2);
+    }
+
+    static String format(List<Point> points) {
+        return points.stream()
+                .map(BenchmarkShapes::format)
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    static String format(Point point) {
+        return "[%s,%s]".formatted(number(point.x()), number(point.y()));
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    /** {@code count} random points around the shape's bounding box, as parallel coordinate arrays. */
+    static double[][] randomPointsAround(List<Point> shape, int count, long seed) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (Point p : shape) {
+            minX = Math.min(minX, p.x());
+            minY = Math.min(minY, p.y());
+            maxX = Math.max(maxX, p.x());
+            maxY = Math.max(maxY, p.y());
+        }
+        Random random = new Random(seed);
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = minX + random.nextDouble() * (maxX - minX);
+            ys[i] = minY + random.nextDouble() * (maxY - minY);
+        }
+        return new double[][]{xs, ys};
+    }
+
+    private static List<Point> walk(int vertexCount, int ux, int uy, int wx, int wy, double scale) {
+        if (vertexCount < 4 || vertexCount % 4 != 0) {
+            throw new IllegalArgumentException("Vertex count must be a positive multiple of 4, but got %d".formatted(vertexCount));
+        }
+        int steps = vertexCount / 4;
+        // the second side is taken with wider steps (w is doubled for the orthogonal case) so it's not a square
+        int[][] edges = {{ux, uy}, {wx, wy}, {-ux, -uy}, {-wx, -wy}};
+        List<Point> points = new ArrayList<>(vertexCount);
+        int x = 0;
+        int y = 0;
+        for (int[] edge : edges) {
+            for (int i = 0; i < steps; i++) {
+                points.add(new Point(x * scale, y * scale));
+                x += edge[0];
+                y += edge[1];
+            }
+        }
+        return points;
+    }
+}
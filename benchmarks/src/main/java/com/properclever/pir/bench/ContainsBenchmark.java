@@ -0,0 +1,80 @@
+package com.properclever.pir.bench;
+
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.Point;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Containment against an already validated rectangle: one point at a time, and a batch of points. Fractional
+ * corners keep the general rectangle off its exact integer path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+public class ContainsBenchmark {
+
+    static final int BATCH_SIZE = 4096;
+
+    @Param({"integer", "fractional"})
+    String coordinates;
+
+    OrthogonalRectangle orthogonal;
+    GeneralRectangle general;
+    Point orthogonalProbe;
+    Point generalProbe;
+    double[] orthogonalXs;
+    double[] orthogonalYs;
+    double[] generalXs;
+    double[] generalYs;
+    BitSet results;
+
+    @Setup
+    public void setUp() {
+        List<Point> orthogonalPoints = BenchmarkShapes.orthogonal(4, coordinates);
+        List<Point> rotatedPoints = BenchmarkShapes.rotated(4, coordinates);
+        orthogonal = new OrthogonalRectangle(orthogonalPoints);
+        general = new GeneralRectangle(rotatedPoints);
+        orthogonalProbe = BenchmarkShapes.centre(orthogonalPoints);
+        generalProbe = BenchmarkShapes.centre(rotatedPoints);
+
+        double[][] batch = BenchmarkShapes.randomPointsAround(orthogonalPoints, BATCH_SIZE, 1);
+        orthogonalXs = batch[0];
+        orthogonalYs = batch[1];
+        batch = BenchmarkShapes.randomPointsAround(rotatedPoints, BATCH_SIZE, 2);
+        generalXs = batch[0];
+        generalYs = batch[1];
+        results = new BitSet(BATCH_SIZE);
+    }
+
+    @Benchmark
+    public boolean orthogonalContains() {
+        return orthogonal.contains(orthogonalProbe);
+    }
+
+    @Benchmark
+    public boolean generalContains() {
+        return general.contains(generalProbe);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BitSet orthogonalContainsAll() {
+        orthogonal.containsAll(orthogonalXs, orthogonalYs, results);
+        return results;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BitSet generalContainsAll() {
+        general.containsAll(generalXs, generalYs, results);
+        return results;
+    }
+}
@@ -0,0 +1,40 @@
+package com.properclever.pir.bench;
+
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.util.PointStringParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+public class ParseBenchmark {
+
+    @Param({"4", "16", "256", "4096"})
+    int vertexCount;
+
+    String shape;
+    String point;
+
+    @Setup
+    public void setUp() {
+        List<Point> points = BenchmarkShapes.rotated(vertexCount);
+        shape = BenchmarkShapes.format(points);
+        point = BenchmarkShapes.format(BenchmarkShapes.centre(points));
+    }
+
+    @Benchmark
+    public List<Point> parsePointArray() {
+        return PointStringParser.parsePointArray(shape);
+    }
+
+    @Benchmark
+    public Point parsePoint() {
+        return PointStringParser.parsePoint(point);
+    }
+}
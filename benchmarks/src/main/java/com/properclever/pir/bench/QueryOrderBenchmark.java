@@ -0,0 +1,77 @@
+package com.properclever.pir.bench;
+
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+import com.properclever.pir.index.QueryOrder;
+import com.properclever.pir.index.SpatialIndex;
+import com.properclever.pir.index.StrRTree;
+import com.properclever.pir.index.UniformGridIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A batch of uniformly random points queried against an index of many rectangles, in input order and sorted
+ * along a space-filling curve. The sort is included in the time, so the orders compare end to end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+public class QueryOrderBenchmark {
+
+    static final int BATCH_SIZE = 1 << 18;
+
+    @Param({"INPUT", "MORTON", "HILBERT"})
+    QueryOrder order;
+
+    @Param({"10000", "200000"})
+    int shapeCount;
+
+    @Param({"str", "grid"})
+    String index;
+
+    SpatialIndex<Shape> spatialIndex;
+    PointBuffer points;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        // the area grows with the shape count, so the density (and the matches per point) stays the same
+        int side = (int) Math.sqrt(shapeCount) * 20;
+        List<Shape> shapes = new ArrayList<>(shapeCount);
+        for (int i = 0; i < shapeCount; i++) {
+            int x = random.nextInt(side);
+            int y = random.nextInt(side);
+            int p = 1 + random.nextInt(30);
+            int q = random.nextInt(30);
+            if (i % 2 == 0) {
+                shapes.add(new OrthogonalRectangle(List.of(new Point(x, y), new Point(x + p, y),
+                        new Point(x + p, y + q + 1), new Point(x, y + q + 1))));
+            } else {
+                // rotated by the integer vector (p, q), so the corners stay exact
+                shapes.add(new GeneralRectangle(List.of(new Point(x, y), new Point(x + p, y + q),
+                        new Point(x + p - q, y + q + p), new Point(x - q, y + p))));
+            }
+        }
+        spatialIndex = index.equals("grid") ? new UniformGridIndex<>(shapes) : new StrRTree<>(shapes);
+        points = PointBuffer.allocate(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            points.add(random.nextDouble() * side, random.nextDouble() * side);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] countContaining() {
+        return spatialIndex.countContaining(points, order);
+    }
+}
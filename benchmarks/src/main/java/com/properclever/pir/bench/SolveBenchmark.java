@@ -0,0 +1,52 @@
+package com.properclever.pir.bench;
+
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.solution.BasicSolution;
+import com.properclever.pir.solution.GeneralSolution;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end: parse both strings, validate the shape and test the point, as one CLI query does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+public class SolveBenchmark {
+
+    @Param({"4", "16", "256", "4096"})
+    int vertexCount;
+
+    @Param({"integer", "fractional"})
+    String coordinates;
+
+    String orthogonalShape;
+    String orthogonalPoint;
+    String rotatedShape;
+    String rotatedPoint;
+
+    @Setup
+    public void setUp() {
+        List<Point> orthogonal = BenchmarkShapes.orthogonal(vertexCount, coordinates);
+        orthogonalShape = BenchmarkShapes.format(orthogonal);
+        orthogonalPoint = BenchmarkShapes.format(BenchmarkShapes.centre(orthogonal));
+        List<Point> rotated = BenchmarkShapes.rotated(vertexCount, coordinates);
+        rotatedShape = BenchmarkShapes.format(rotated);
+        rotatedPoint = BenchmarkShapes.format(BenchmarkShapes.centre(rotated));
+    }
+
+    @Benchmark
+    public Boolean basicSolution() {
+        return new BasicSolution(orthogonalShape, orthogonalPoint).solve();
+    }
+
+    @Benchmark
+    public Boolean generalSolution() {
+        return new GeneralSolution(rotatedShape, rotatedPoint).solve();
+    }
+}
@@ -0,0 +1,51 @@
+package com.properclever.pir.bench;
+
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.util.EdgeCollapser;
+import com.properclever.pir.util.OrthogonalGeomTools;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shape validation on its own, parameterized by vertex count: everything past the four corners is a
+ * collinear mid-edge point that the validators have to walk through and collapse. Integer and fractional
+ * coordinates take the exact and the tolerant paths respectively.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+public class ValidateBenchmark {
+
+    @Param({"4", "16", "256", "4096"})
+    int vertexCount;
+
+    @Param({"integer", "fractional"})
+    String coordinates;
+
+    List<Point> orthogonalPoints;
+    List<Point> rotatedPoints;
+    OrthogonalGeomTools orthogonalTools;
+
+    @Setup
+    public void setUp() {
+        orthogonalPoints = BenchmarkShapes.orthogonal(vertexCount, coordinates);
+        rotatedPoints = BenchmarkShapes.rotated(vertexCount, coordinates);
+        orthogonalTools = new OrthogonalGeomTools();
+    }
+
+    @Benchmark
+    public boolean isValidRectangle() {
+        return orthogonalTools.isValidRectangle(orthogonalPoints);
+    }
+
+    @Benchmark
+    public Optional<List<Point>> collapseAndCheckRightAngles() {
+        return EdgeCollapser.collapseAndCheckRightAngles(rotatedPoints);
+    }
+}
@@ -0,0 +1,128 @@
+package com.properclever.pir.app;
+
+import com.properclever.pir.solution.Solvable;
+import com.properclever.pir.solution.SolvableExecutor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Non-interactive batch mode: reads shape/point records line by line, solves them on a
+ * {@link SolvableExecutor} and streams the results out in input order.
+ * <p>
+ * Each input line holds a shape and a point separated by a semicolon, e.g.
+ * {@code [[1,1], [1,3], [3,3], [3,1]]; [2,2]}. Blank lines are skipped. Each record produces one output
+ * line: {@code true}, {@code false}, or {@code error: <message>} if the record could not be parsed.
+ * <p>
+ * At most {@code maxInFlight} records are queued or running at any time; lines are only read as results
+ * are written, so memory stays bounded however large the input is.
+ */
+public class BatchRunner {
+    private static final char SEPARATOR = ';';
+
+    private final BiFunction<String, String, Solvable<Boolean>> solutionFactory;
+    private final int threads;
+    private final int maxInFlight;
+
+    public BatchRunner(BiFunction<String, String, Solvable<Boolean>> solutionFactory, int threads) {
+        this(solutionFactory, threads, threads * 64);
+    }
+
+    public BatchRunner(BiFunction<String, String, Solvable<Boolean>> solutionFactory, int threads, int maxInFlight) {
+        if (threads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Threads and in-flight limit must be positive");
+        }
+        this.solutionFactory = solutionFactory;
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Summary run(BufferedReader in, Writer out) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Counts counts = new Counts();
+        try (SolvableExecutor executor = SolvableExecutor.forkJoin(threads, maxInFlight);
+             Stream<Result> results = executor.solveOrdered(in.lines()
+                     .filter(line -> !line.isBlank())
+                     .map(record -> () -> solve(record)))) {
+            Iterator<Result> ordered = results.iterator();
+            while (ordered.hasNext()) {
+                write(ordered.next(), out, counts);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (CompletionException e) {
+            // solve() turns every failure into an error result, so only an interrupted submit gets here
+            if (e.getCause() instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            throw e;
+        }
+        out.flush();
+        return new Summary(counts.inside, counts.outside, counts.errors, System.nanoTime() - start);
+    }
+
+    private Result solve(String record) {
+        int separator = record.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return Result.error("expected '<shape>; <point>'");
+        }
+        try {
+            boolean inside = solutionFactory.apply(record.substring(0, separator), record.substring(separator + 1)).solve();
+            return inside ? Result.INSIDE : Result.OUTSIDE;
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    private static void write(Result result, Writer out, Counts counts) throws IOException {
+        if (result.error() != null) {
+            counts.errors++;
+            out.write("error: " + result.error());
+        } else if (result.inside()) {
+            counts.inside++;
+            out.write("true");
+        } else {
+            counts.outside++;
+            out.write("false");
+        }
+        out.write(System.lineSeparator());
+    }
+
+    private record Result(boolean inside, String error) {
+        static final Result INSIDE = new Result(true, null);
+        static final Result OUTSIDE = new Result(false, null);
+
+        static Result error(String message) {
+            return new Result(false, message == null ? "unknown error" : message);
+        }
+    }
+
+    // only touched by the reading thread
+    private static final class Counts {
+        long inside;
+        long outside;
+        long errors;
+    }
+
+    public record Summary(long inside, long outside, long errors, long elapsedNanos) {
+        public long records() {
+            return inside + outside + errors;
+        }
+
+        public double recordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : records() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Processed %d records (%d inside, %d outside, %d errors) in %.3f s: %.0f records/s"
+                    .formatted(records(), inside, outside, errors, elapsedNanos / 1e9, recordsPerSecond());
+        }
+    }
+}
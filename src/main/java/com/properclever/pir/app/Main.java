@@ -1,9 +1,26 @@
 package com.properclever.pir.app;
 
+import com.properclever.pir.cache.ShapeCache;
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.Shape;
+import com.properclever.pir.io.PointFileConverter;
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.server.SolutionServer;
 import com.properclever.pir.solution.BasicSolution;
 import com.properclever.pir.solution.GeneralSolution;
 import com.properclever.pir.solution.Solvable;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.InputMismatchException;
 import java.util.List;
@@ -18,7 +35,29 @@ public class Main {
     private static final String CYAN = "\u001B[36m";
     private static final String YELLOW = "\u001B[33m";
 
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final String BATCH_USAGE = """
+            Usage: --batch <basic|general> [input file, or - for stdin] [--threads N] [--out output file] [--cache N] [--metrics]
+              Each input line is '<shape>; <point>', e.g. [[1,1], [1,3], [3,3], [3,1]]; [2,2]
+              Repeated shapes are validated once, for up to N distinct shapes (default 10000, 0 to disable)
+              --metrics prints per-stage latency histograms and rejection counts to stderr at the end
+            Usage: --convert <text point file> <binary point file>
+              Each input line is a point [x,y] or a list of points [[x0,y0],...,[xN,yN]]
+            Usage: --serve [port, default 8080] [--max-request-bytes N] [--metrics]
+              POST /solve/<basic|general> '<shape>; <point>', POST /batch/<basic|general> '<shape>\\n<points>', GET /stats""";
+
     public static void main(String[] args) {
+        if (args.length > 0) {
+            // non-interactive mode, no menus
+            System.exit(switch (args[0]) {
+                case "--convert" -> runConvert(args);
+                case "--serve" -> runServe(args);
+                default -> runBatch(args);
+            });
+        }
+        // interactive use is too slow for the timing to matter, so always collect
+        Metrics.setEnabled(true);
+        Metrics.registerMBean();
         try (Scanner scanner = new Scanner(System.in)) {
             while (true) {
                 clearScreen();
@@ -32,6 +71,10 @@ public class Main {
                     case 2 ->
                         // inject GeneralSolution with method ref
                             handleSolutionMenu(scanner, "GENERAL", GeneralSolution::new);
+                    case 3 -> {
+                        System.out.print(Metrics.dump());
+                        pause(scanner);
+                    }
                     case 9 -> {
                         System.out.println("Exiting program. Goodbye!");
                         return;
@@ -45,16 +88,141 @@ public class Main {
         }
     }
 
+    // batch mode: stream records from a file (or stdin) through a worker pool
+    private static int runBatch(String[] args) {
+        if (args.length < 2 || !args[0].equals("--batch")) {
+            System.err.println(BATCH_USAGE);
+            return 2;
+        }
+        String solutionType = args[1].toLowerCase();
+        if (!solutionType.equals("basic") && !solutionType.equals("general")) {
+            System.err.println("Unknown solution type: " + args[1] + System.lineSeparator() + BATCH_USAGE);
+            return 2;
+        }
+        String input = "-";
+        String output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--cache" -> cacheSize = Integer.parseInt(args[++i]);
+                    case "--metrics" -> Metrics.setEnabled(true);
+                    case "--out" -> output = args[++i];
+                    default -> input = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(BATCH_USAGE);
+            return 2;
+        }
+        // checked before the output file is opened (and truncated)
+        if (threads < 1) {
+            System.err.println("Thread count must be at least 1, but got " + threads + System.lineSeparator() + BATCH_USAGE);
+            return 2;
+        }
+
+        // the shape string repeats across records far more often than the point, so cache its validation
+        ShapeCache<? extends Shape> cache = null;
+        BiFunction<String, String, Solvable<Boolean>> solutionFactory;
+        if (cacheSize <= 0) {
+            solutionFactory = solutionType.equals("basic") ? BasicSolution::new : GeneralSolution::new;
+        } else if (solutionType.equals("basic")) {
+            ShapeCache<OrthogonalRectangle> orthogonalCache = ShapeCache.orthogonal(cacheSize);
+            solutionFactory = (shape, point) -> new BasicSolution(shape, point, orthogonalCache);
+            cache = orthogonalCache;
+        } else {
+            ShapeCache<GeneralRectangle> generalCache = ShapeCache.general(cacheSize);
+            solutionFactory = (shape, point) -> new GeneralSolution(shape, point, generalCache);
+            cache = generalCache;
+        }
+
+        try (BufferedReader in = input.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(input));
+             Writer out = output == null
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                     : Files.newBufferedWriter(Path.of(output))) {
+            BatchRunner.Summary summary = new BatchRunner(solutionFactory, threads).run(in, out);
+            // keep the summary off stdout so the results can be piped
+            System.err.println(summary);
+            if (cache != null) {
+                System.err.println(cache.stats());
+            }
+            if (Metrics.isEnabled()) {
+                System.err.print(Metrics.dump());
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println(MessageFormat.format("Error: {0}", e.getMessage()));
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    // convert bracketed text points into the binary columnar format
+    private static int runConvert(String[] args) {
+        if (args.length != 3) {
+            System.err.println(BATCH_USAGE);
+            return 2;
+        }
+        try {
+            long count = PointFileConverter.convert(Path.of(args[1]), Path.of(args[2]));
+            System.err.println("Wrote %d points to %s".formatted(count, args[2]));
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(MessageFormat.format("Error: {0}", e.getMessage()));
+            return 1;
+        }
+    }
+
+    // HTTP service mode: runs until the process is stopped
+    private static int runServe(String[] args) {
+        int port = 8080;
+        int maxRequestBytes = SolutionServer.DEFAULT_MAX_REQUEST_BYTES;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--max-request-bytes" -> maxRequestBytes = Integer.parseInt(args[++i]);
+                    case "--metrics" -> Metrics.setEnabled(true);
+                    default -> port = Integer.parseInt(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(BATCH_USAGE);
+            return 2;
+        }
+        try {
+            // metrics can also be switched on later over JMX
+            Metrics.registerMBean();
+            SolutionServer server = SolutionServer.start(new InetSocketAddress(port), maxRequestBytes);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            System.err.println("Listening on port " + server.getPort());
+            Thread.currentThread().join();
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(MessageFormat.format("Error: {0}", e.getMessage()));
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
     private static String getMainMenu() {
         var menuMainTemplate = """
                 %s
                 %s    MAIN MENU%s
                 [%s1%s] Basic Solution
                 [%s2%s] General Solution
+                [%s3%s] Show Metrics
                 [%s9%s] Exit
                 %s
                 Please enter number:\s""";
-        return String.format(menuMainTemplate, BLUE, YELLOW, BLUE, CYAN, BLUE, CYAN, BLUE, CYAN, BLUE, RESET);
+        return String.format(menuMainTemplate, BLUE, YELLOW, BLUE, CYAN, BLUE, CYAN, BLUE, CYAN, BLUE, CYAN, BLUE, RESET);
     }
 
     private static String getSolutionMenu(String solutionType) {
@@ -0,0 +1,98 @@
+package com.properclever.pir.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch of 4-bit counters estimating how often each key hash has been seen, for admission
+ * decisions in {@link ShapeCache}. Each key maps to one counter in each of four rows and its estimate is the
+ * smallest of the four, so collisions can only overestimate.
+ * <p>
+ * Once the number of increments reaches ten times the cache size every counter is halved, which ages out
+ * past popularity. Counters are packed sixteen to a long.
+ * <p>
+ * Thread-safe: each counter update and each halving is a compare-and-set on its long, so a saturated counter
+ * never wraps into its neighbour, and exactly one thread halves the table each time the sample fills up.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int MIN_COUNTERS = 1024;
+    private static final long[] SEEDS = {0x97cb3127L, 0xb1a2c8e5L, 0xe54a81cfL, 0x8f33a7d1L};
+    // every counter but its high bit, for halving all sixteen at once
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    private final AtomicLongArray table;
+    private final int rowMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int maximumSize) {
+        // one row is a power of two with at least as many counters as cached keys, and never so few
+        // that the one-off keys of a small cache saturate it
+        int counters = Integer.highestOneBit(Math.max(MIN_COUNTERS, Math.min(maximumSize, 1 << 24) - 1) << 1);
+        this.rowMask = counters - 1;
+        this.table = new AtomicLongArray(DEPTH * (counters / 16));
+        this.sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+    }
+
+    int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, count(row, index(hash, row)));
+        }
+        return frequency;
+    }
+
+    void increment(int hash) {
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            added |= tryIncrement(slot(row, index), index);
+        }
+        if (added) {
+            int count = additions.incrementAndGet();
+            // only the thread that swaps the full count back to zero halves the table
+            if (count >= sampleSize && additions.compareAndSet(count, 0)) {
+                reset();
+            }
+        }
+    }
+
+    // adds one to the counter unless it is saturated, so it can never carry into the next one
+    private boolean tryIncrement(int slot, int index) {
+        int shift = shift(index);
+        long current;
+        do {
+            current = table.get(slot);
+            if (((current >>> shift) & MAX_COUNT) == MAX_COUNT) {
+                return false;
+            }
+        } while (!table.compareAndSet(slot, current, current + (1L << shift)));
+        return true;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, value -> (value >>> 1) & HALF_MASK);
+        }
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 32;
+        return (int) h & rowMask;
+    }
+
+    private int count(int row, int index) {
+        return (int) (table.get(slot(row, index)) >>> shift(index)) & MAX_COUNT;
+    }
+
+    private int slot(int row, int index) {
+        return row * ((rowMask + 1) / 16) + (index >>> 4);
+    }
+
+    private static int shift(int index) {
+        return (index & 15) << 2;
+    }
+}
@@ -0,0 +1,135 @@
+package com.properclever.pir.cache;
+
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+import com.properclever.pir.domain.Shapes;
+import com.properclever.pir.domain.ValidationResult;
+import com.properclever.pir.util.PointStringParser;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded, concurrent cache from raw shape strings to their validation result, so a shape sent over and
+ * over is parsed and validated once. Rejected shapes are cached too (as their {@link ValidationResult.Rejected}
+ * marker), since an invalid fence repeated a thousand times is as common as a valid one. Strings that fail to
+ * parse are not cached; the parser's exception reaches the caller every time, as before.
+ * <p>
+ * Eviction is frequency aware, in the style of TinyLFU: a small count-min sketch estimates how often every key
+ * has been requested (including keys not in the cache), and when the cache is full a new key only displaces
+ * the oldest resident if it has been seen more often (a resident that wins goes to the back of the queue).
+ * A one-off shape therefore cannot flush the popular ones.
+ * The sketch counters are halved periodically so that popularity follows the recent workload.
+ * <p>
+ * Lookups are lock-free; only inserts after a miss serialize, on the eviction queue.
+ */
+public final class ShapeCache<S extends Shape> {
+    private final int maximumSize;
+    private final Function<PointBuffer, ValidationResult<S>> validator;
+    private final ConcurrentHashMap<String, ValidationResult<S>> entries;
+    private final FrequencySketch sketch;
+    // insertion order of the resident keys; the head is the next eviction candidate
+    private final ArrayDeque<String> residents;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public ShapeCache(int maximumSize, Function<PointBuffer, ValidationResult<S>> validator) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive, but got %d".formatted(maximumSize));
+        }
+        this.maximumSize = maximumSize;
+        this.validator = validator;
+        this.entries = new ConcurrentHashMap<>(Math.min(maximumSize, 1 << 16));
+        this.sketch = new FrequencySketch(maximumSize);
+        this.residents = new ArrayDeque<>(Math.min(maximumSize, 1 << 16));
+    }
+
+    public static ShapeCache<OrthogonalRectangle> orthogonal(int maximumSize) {
+        return new ShapeCache<>(maximumSize, Shapes::tryOrthogonal);
+    }
+
+    public static ShapeCache<GeneralRectangle> general(int maximumSize) {
+        return new ShapeCache<>(maximumSize, Shapes::tryGeneral);
+    }
+
+    /**
+     * Returns the validation result for the shape string, parsing and validating it on a miss.
+     *
+     * @throws IllegalArgumentException if the string cannot be parsed (such strings are not cached).
+     */
+    public ValidationResult<S> get(String shapeStr) {
+        int hash = shapeStr.hashCode();
+        sketch.increment(hash);
+        ValidationResult<S> result = entries.get(shapeStr);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        long start = System.nanoTime();
+        result = validator.apply(PointStringParser.parsePointBuffer(shapeStr));
+        loadNanos.add(System.nanoTime() - start);
+        admit(shapeStr, hash, result);
+        return result;
+    }
+
+    private void admit(String key, int hash, ValidationResult<S> result) {
+        synchronized (residents) {
+            if (entries.containsKey(key)) {
+                // another thread loaded it meanwhile
+                return;
+            }
+            if (residents.size() >= maximumSize) {
+                String victim = residents.peekFirst();
+                if (sketch.frequency(hash) <= sketch.frequency(victim.hashCode())) {
+                    // the newcomer is no more popular than the oldest resident, so keep what we have, but
+                    // give the resident a second chance at the back so the next newcomer meets another one
+                    residents.addLast(residents.removeFirst());
+                    return;
+                }
+                residents.removeFirst();
+                entries.remove(victim);
+                evictions.increment();
+            }
+            residents.addLast(key);
+            entries.put(key, result);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), loadNanos.sum());
+    }
+
+    /** A snapshot of the cache counters; a load is one parse plus validation after a miss. */
+    public record Stats(long hits, long misses, long evictions, long totalLoadNanos) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        public double averageLoadNanos() {
+            return misses == 0 ? 0 : (double) totalLoadNanos / misses;
+        }
+
+        @Override
+        public String toString() {
+            return "Shape cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, %.1f us average load"
+                    .formatted(hits, misses, hitRate() * 100, evictions, averageLoadNanos() / 1e3);
+        }
+    }
+}
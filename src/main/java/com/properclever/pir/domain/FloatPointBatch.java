@@ -0,0 +1,113 @@
+package com.properclever.pir.domain;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A growable batch of query points stored as two parallel columns of {@code float}s: half the memory and
+ * bandwidth of a {@link PointBuffer}, for very large batches where single precision is enough.
+ * <p>
+ * Only the storage is single precision. {@link Shape#containsAll(FloatPointBatch, java.util.BitSet)} answers exactly
+ * for the stored values, i.e. as if each point had been widened to double; see
+ * {@link com.properclever.pir.util.BatchContainmentKernel} for how the kernels stay exact near the edges.
+ * <p>
+ * Not thread-safe.
+ */
+public final class FloatPointBatch {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private float[] xs;
+    private float[] ys;
+    private int size;
+
+    private FloatPointBatch(float[] xs, float[] ys, int size) {
+        this.xs = xs;
+        this.ys = ys;
+        this.size = size;
+    }
+
+    /** An empty batch with room for {@code capacity} points before it grows. */
+    public static FloatPointBatch allocate(int capacity) {
+        return new FloatPointBatch(new float[capacity], new float[capacity], 0);
+    }
+
+    /**
+     * A batch over the first {@code size} entries of the given columns, without copying them.
+     *
+     * @throws IllegalArgumentException if the columns differ in length or are shorter than {@code size}.
+     */
+    public static FloatPointBatch wrap(float[] xs, float[] ys, int size) {
+        if (xs.length != ys.length || size < 0 || size > xs.length) {
+            throw new IllegalArgumentException("Cannot wrap %d points in columns of %d x and %d y".formatted(size, xs.length, ys.length));
+        }
+        return new FloatPointBatch(xs, ys, size);
+    }
+
+    /** The points of {@code points}, each coordinate rounded to the nearest float. */
+    public static FloatPointBatch of(PointBuffer points) {
+        FloatPointBatch batch = allocate(Math.max(points.size(), DEFAULT_CAPACITY));
+        for (int i = 0; i < points.size(); i++) {
+            batch.add((float) points.x(i), (float) points.y(i));
+        }
+        return batch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public float x(int index) {
+        return xs[Objects.checkIndex(index, size)];
+    }
+
+    public float y(int index) {
+        return ys[Objects.checkIndex(index, size)];
+    }
+
+    public void add(float x, float y) {
+        if (size == xs.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size * 2);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    public void set(int index, float x, float y) {
+        Objects.checkIndex(index, size);
+        xs[index] = x;
+        ys[index] = y;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * The backing x column, for the batch kernels: only the first {@link #size()} elements are points, and it may
+     * be longer. No copy is made, so writes go through to the batch, but growing the batch replaces the array.
+     */
+    public float[] xArray() {
+        return xs;
+    }
+
+    /** The y column; see {@link #xArray()}. */
+    public float[] yArray() {
+        return ys;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            out.append(i == 0 ? "[" : ", [").append(xs[i]).append(',').append(ys[i]).append(']');
+        }
+        return out.append(']').toString();
+    }
+}
@@ -1,11 +1,14 @@
 package com.properclever.pir.domain;
 
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.metrics.Stage;
+import com.properclever.pir.util.BatchKernels;
+import com.properclever.pir.util.EdgeCollapser;
 import com.properclever.pir.util.GeneralGeomTools;
+import com.properclever.pir.util.GeneralRectangleKernel;
 
+import java.util.BitSet;
 import java.util.List;
-import java.util.Optional;
-
-import static com.properclever.pir.util.EdgeCollapser.collapseAndCheckRightAngles;
 
 public class GeneralRectangle implements Shape {
     public final Point v0;
@@ -13,18 +16,43 @@ public class GeneralRectangle implements Shape {
     public final Point v2;
     public final Point v3;
     private final GeneralGeomTools tools = new GeneralGeomTools();
+    private final GeneralRectangleKernel kernel;
 
     public GeneralRectangle(List<Point> points) {
-        Optional<List<Point>> checkedRectanglePoints = collapseAndCheckRightAngles(points);
-        if (checkedRectanglePoints.isEmpty()) {
-            // if the shape is not a valid rectangle, return false.
+        this(validCorners(points));
+    }
+
+    // from the four corners of points already validated as a rectangle, in winding order
+    GeneralRectangle(Point v0, Point v1, Point v2, Point v3) {
+        this.v0 = v0;
+        this.v1 = v1;
+        this.v2 = v2;
+        this.v3 = v3;
+        // put the corners in counterclockwise order once, so queries don't have to
+        kernel = new GeneralRectangleKernel(v0, v1, v2, v3);
+    }
+
+    // from the four corners left by Shapes.collapseGeneral, for Shapes or the constructor above
+    GeneralRectangle(PointBuffer corners) {
+        this.kernel = new GeneralRectangleKernel(corners.x(0), corners.y(0), corners.x(1), corners.y(1),
+                corners.x(2), corners.y(2), corners.x(3), corners.y(3));
+        this.v0 = corners.get(0);
+        this.v1 = corners.get(1);
+        this.v2 = corners.get(2);
+        this.v3 = corners.get(3);
+    }
+
+    // validity is decided by the factory's rules; this just turns a rejection into an exception
+    private static PointBuffer validCorners(List<Point> points) {
+        PointBuffer corners = PointBuffer.allocate(EdgeCollapser.RECTANGLE_LIMIT);
+        if (Shapes.collapseGeneral(points == null ? null : PointBuffer.of(points), corners) != null) {
             throw new IllegalArgumentException("Points do not form a valid general rectangle");
         }
-        List<Point> vertices = tools.extractFourCorners(checkedRectanglePoints.get());
-        v0 = vertices.get(0);
-        v1 = vertices.get(1);
-        v2 = vertices.get(2);
-        v3 = vertices.get(3);
+        return corners;
+    }
+
+    public GeneralRectangleKernel getKernel() {
+        return kernel;
     }
 
     @Override
@@ -36,4 +64,25 @@ public class GeneralRectangle implements Shape {
     public boolean contains(Point testPoint) {
         return tools.checkPointInRectangle(this, testPoint);
     }
+
+    @Override
+    public boolean contains(double x, double y) {
+        return tools.checkPointInRectangle(this, x, y);
+    }
+
+    @Override
+    public void containsAll(double[] xs, double[] ys, int length, BitSet results) {
+        // SIMD across the batch when the Vector API is available, scalar loop otherwise
+        BatchKernels.requireLength(xs, ys, length);
+        long start = Metrics.start();
+        BatchKernels.get().containsAllGeneral(kernel, xs, ys, length, results);
+        Metrics.stop(Stage.CONTAINS_BATCH, start);
+    }
+
+    @Override
+    public void containsAll(FloatPointBatch points, BitSet results) {
+        long start = Metrics.start();
+        BatchKernels.get().containsAllGeneral(kernel, points.xArray(), points.yArray(), points.size(), results);
+        Metrics.stop(Stage.CONTAINS_BATCH, start);
+    }
 }
\ No newline at end of file
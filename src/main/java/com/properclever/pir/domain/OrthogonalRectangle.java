@@ -1,7 +1,11 @@
 package com.properclever.pir.domain;
 
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.metrics.Stage;
+import com.properclever.pir.util.BatchKernels;
 import com.properclever.pir.util.OrthogonalGeomTools;
 
+import java.util.BitSet;
 import java.util.List;
 
 public class OrthogonalRectangle implements Shape {
@@ -12,13 +16,11 @@ public class OrthogonalRectangle implements Shape {
     private final OrthogonalGeomTools tools = new OrthogonalGeomTools();
 
     public OrthogonalRectangle(List<Point> points) {
-        if (!tools.isValidRectangle(points)) {
-            // if the shape is not a valid rectangle, return false immediately.
-            throw new IllegalArgumentException("Points do not form a valid orthogonal rectangle");
-        }
-        // since we know the shape is an orthogonal rectangle, the bounding box must also be valid
-        BoundingBox bbox = tools.getValidBoundingBox(points);
+        this(validBoundingBox(points));
+    }
 
+    // from the bounding box of points already validated as an orthogonal rectangle, by Shapes or the constructor above
+    OrthogonalRectangle(BoundingBox bbox) {
         // Assign rectangle corners from BoundingBox
         this.bottomLeft = bbox.minPoint();
         this.bottomRight = new Point(bbox.maxPoint().x(), bbox.minPoint().y());
@@ -26,6 +28,15 @@ public class OrthogonalRectangle implements Shape {
         this.topLeft = new Point(bbox.minPoint().x(), bbox.maxPoint().y());
     }
 
+    // validity is decided by the factory's rules; this just turns a rejection into an exception
+    private static BoundingBox validBoundingBox(List<Point> points) {
+        PointBuffer buffer = points == null ? null : PointBuffer.of(points);
+        if (Shapes.checkOrthogonal(buffer) != null) {
+            throw new IllegalArgumentException("Points do not form a valid orthogonal rectangle");
+        }
+        return buffer.getBoundingBox();
+    }
+
     @Override
     public List<Point> getCoordinates() {
         return List.of(bottomLeft, topLeft, topRight, bottomRight, bottomLeft);
@@ -35,4 +46,26 @@ public class OrthogonalRectangle implements Shape {
     public boolean contains(Point testPoint) {
         return tools.checkPointInRectangle(this, testPoint);
     }
+
+    @Override
+    public boolean contains(double x, double y) {
+        return tools.checkPointInRectangle(this, x, y);
+    }
+
+    @Override
+    public void containsAll(double[] xs, double[] ys, int length, BitSet results) {
+        // SIMD across the batch when the Vector API is available, scalar loop otherwise
+        BatchKernels.requireLength(xs, ys, length);
+        long start = Metrics.start();
+        BatchKernels.get().containsAllOrthogonal(bottomLeft.x(), bottomLeft.y(), topRight.x(), topRight.y(), xs, ys, length, results);
+        Metrics.stop(Stage.CONTAINS_BATCH, start);
+    }
+
+    @Override
+    public void containsAll(FloatPointBatch points, BitSet results) {
+        long start = Metrics.start();
+        BatchKernels.get().containsAllOrthogonal(bottomLeft.x(), bottomLeft.y(), topRight.x(), topRight.y(),
+                points.xArray(), points.yArray(), points.size(), results);
+        Metrics.stop(Stage.CONTAINS_BATCH, start);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,304 @@
+package com.properclever.pir.domain;
+
+import com.properclever.pir.util.Orientation;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A growable sequence of points stored as two parallel columns of doubles (struct of arrays), so that a shape
+ * or a batch of any size costs two allocations rather than one {@link Point} per vertex.
+ * <p>
+ * The columns live either on the heap ({@link #allocate}, {@link #wrap}) or off-heap in memory from an
+ * {@link Arena} ({@link #allocateNative}); the off-heap variant is freed with its arena and must not be used
+ * after that. Points compare equal when both coordinates do under {@link Double#compare}, exactly as
+ * {@link Point#equals} does.
+ * <p>
+ * Not thread-safe.
+ */
+public abstract sealed class PointBuffer permits PointBuffer.Heap, PointBuffer.Native {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    int size;
+
+    /** An empty heap buffer with room for {@code capacity} points before it grows. */
+    public static PointBuffer allocate(int capacity) {
+        return new Heap(new double[capacity], new double[capacity], 0);
+    }
+
+    /** An empty off-heap buffer whose memory (including any regrowth) comes from, and is freed with, {@code arena}. */
+    public static PointBuffer allocateNative(Arena arena, int capacity) {
+        return new Native(arena, capacity);
+    }
+
+    /**
+     * A heap buffer over the first {@code size} entries of the given columns, without copying them.
+     *
+     * @throws IllegalArgumentException if the columns differ in length or are shorter than {@code size}.
+     */
+    public static PointBuffer wrap(double[] xs, double[] ys, int size) {
+        if (xs.length != ys.length || size < 0 || size > xs.length) {
+            throw new IllegalArgumentException("Cannot wrap %d points in columns of %d x and %d y".formatted(size, xs.length, ys.length));
+        }
+        return new Heap(xs, ys, size);
+    }
+
+    public static PointBuffer of(List<Point> points) {
+        PointBuffer buffer = allocate(Math.max(points.size(), DEFAULT_CAPACITY));
+        for (Point p : points) {
+            if (p == null) {
+                throw new IllegalArgumentException("Point cannot be null");
+            }
+            buffer.add(p.x(), p.y());
+        }
+        return buffer;
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    public final double x(int index) {
+        return xAt(Objects.checkIndex(index, size));
+    }
+
+    public final double y(int index) {
+        return yAt(Objects.checkIndex(index, size));
+    }
+
+    /** Boxes point {@code index}, for code that still works on {@link Point}s. */
+    public final Point get(int index) {
+        return new Point(x(index), y(index));
+    }
+
+    public final void add(double x, double y) {
+        if (size == capacity()) {
+            grow(Math.max(DEFAULT_CAPACITY, size * 2));
+        }
+        setAt(size++, x, y);
+    }
+
+    public final void set(int index, double x, double y) {
+        setAt(Objects.checkIndex(index, size), x, y);
+    }
+
+    public final void removeLast() {
+        if (size == 0) {
+            throw new IllegalStateException("PointBuffer is empty");
+        }
+        size--;
+    }
+
+    public final void clear() {
+        size = 0;
+    }
+
+    /** True if points {@code i} and {@code j} are equal in the sense of {@link Point#equals}. */
+    public final boolean samePoint(int i, int j) {
+        return Double.compare(x(i), x(j)) == 0 && Double.compare(y(i), y(j)) == 0;
+    }
+
+    /** True if point {@code index} equals (x, y) in the sense of {@link Point#equals}. */
+    public final boolean isPoint(int index, double x, double y) {
+        return Double.compare(x(index), x) == 0 && Double.compare(y(index), y) == 0;
+    }
+
+    /**
+     * True if every coordinate is a whole number small enough for exact {@code long} geometry
+     * (see {@link Orientation#isExactInteger}), as with integer grid feeds such as microdegrees.
+     */
+    public final boolean isIntegral() {
+        for (int i = 0; i < size; i++) {
+            if (!Orientation.isExactInteger(xAt(i)) || !Orientation.isExactInteger(yAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The axis-aligned bounds of the points, computed as {@link Shape#getBoundingBox()} does. */
+    public final BoundingBox getBoundingBox() {
+        if (size == 0) {
+            throw new IllegalStateException("PointBuffer must have at least one point");
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xAt(i));
+            minY = Math.min(minY, yAt(i));
+            maxX = Math.max(maxX, xAt(i));
+            maxY = Math.max(maxY, yAt(i));
+        }
+        return new BoundingBox(new Point(minX, minY), new Point(maxX, maxY));
+    }
+
+    public final List<Point> toList() {
+        List<Point> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new Point(xAt(i), yAt(i)));
+        }
+        return points;
+    }
+
+    /** True if the columns are heap arrays, i.e. {@link #xArray()} and {@link #yArray()} are available. */
+    public abstract boolean hasArray();
+
+    /**
+     * The backing x column, for the batch kernels: only the first {@link #size()} elements are points, and it may
+     * be longer. No copy is made, so writes go through to the buffer, but growing the buffer replaces the array.
+     *
+     * @throws UnsupportedOperationException if the buffer is off-heap.
+     */
+    public abstract double[] xArray();
+
+    /** The y column; see {@link #xArray()}. */
+    public abstract double[] yArray();
+
+    abstract int capacity();
+
+    abstract double xAt(int index);
+
+    abstract double yAt(int index);
+
+    abstract void setAt(int index, double x, double y);
+
+    abstract void grow(int capacity);
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            out.append(i == 0 ? "[" : ", [").append(xAt(i)).append(',').append(yAt(i)).append(']');
+        }
+        return out.append(']').toString();
+    }
+
+    static final class Heap extends PointBuffer {
+        private double[] xs;
+        private double[] ys;
+
+        Heap(double[] xs, double[] ys, int size) {
+            this.xs = xs;
+            this.ys = ys;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasArray() {
+            return true;
+        }
+
+        @Override
+        public double[] xArray() {
+            return xs;
+        }
+
+        @Override
+        public double[] yArray() {
+            return ys;
+        }
+
+        @Override
+        int capacity() {
+            return xs.length;
+        }
+
+        @Override
+        double xAt(int index) {
+            return xs[index];
+        }
+
+        @Override
+        double yAt(int index) {
+            return ys[index];
+        }
+
+        @Override
+        void setAt(int index, double x, double y) {
+            xs[index] = x;
+            ys[index] = y;
+        }
+
+        @Override
+        void grow(int capacity) {
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+    }
+
+    static final class Native extends PointBuffer {
+        private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+        private final Arena arena;
+        private MemorySegment xs;
+        private MemorySegment ys;
+        private int capacity;
+
+        Native(Arena arena, int capacity) {
+            this.arena = arena;
+            this.capacity = capacity;
+            this.xs = arena.allocateArray(DOUBLE, capacity);
+            this.ys = arena.allocateArray(DOUBLE, capacity);
+        }
+
+        @Override
+        public boolean hasArray() {
+            return false;
+        }
+
+        @Override
+        public double[] xArray() {
+            throw new UnsupportedOperationException("Off-heap PointBuffer has no array");
+        }
+
+        @Override
+        public double[] yArray() {
+            throw new UnsupportedOperationException("Off-heap PointBuffer has no array");
+        }
+
+        @Override
+        int capacity() {
+            return capacity;
+        }
+
+        @Override
+        double xAt(int index) {
+            return xs.getAtIndex(DOUBLE, index);
+        }
+
+        @Override
+        double yAt(int index) {
+            return ys.getAtIndex(DOUBLE, index);
+        }
+
+        @Override
+        void setAt(int index, double x, double y) {
+            xs.setAtIndex(DOUBLE, index, x);
+            ys.setAtIndex(DOUBLE, index, y);
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            // the old segments stay allocated until the arena closes
+            long bytes = (long) size * Double.BYTES;
+            MemorySegment newXs = arena.allocateArray(DOUBLE, newCapacity);
+            MemorySegment newYs = arena.allocateArray(DOUBLE, newCapacity);
+            MemorySegment.copy(xs, 0, newXs, 0, bytes);
+            MemorySegment.copy(ys, 0, newYs, 0, bytes);
+            xs = newXs;
+            ys = newYs;
+            capacity = newCapacity;
+        }
+    }
+}
@@ -1,11 +1,72 @@
 package com.properclever.pir.domain;
 
+import com.properclever.pir.util.BatchKernels;
+
+import java.util.BitSet;
 import java.util.List;
 
 public interface Shape {
     List<Point> getCoordinates();
     boolean contains(Point testPoint);
 
+    /**
+     * Primitive variant of {@link #contains(Point)} for hot loops. Validated rectangles override this
+     * so that a query allocates nothing; the default simply boxes the coordinates into a Point.
+     */
+    default boolean contains(double x, double y) {
+        return contains(new Point(x, y));
+    }
+
+    /**
+     * Batch containment: tests every (xs[i], ys[i]) pair against this (already validated) shape and
+     * sets bit i of {@code results} if the point is strictly inside, clearing it otherwise.
+     * <p>
+     * Size {@code results} up front (e.g. {@code new BitSet(xs.length)}) and the loop allocates nothing.
+     *
+     * @throws IllegalArgumentException if the coordinate arrays differ in length.
+     */
+    default void containsAll(double[] xs, double[] ys, BitSet results) {
+        BatchKernels.requireSameLength(xs, ys);
+        containsAll(xs, ys, xs.length, results);
+    }
+
+    /**
+     * Same as {@link #containsAll(double[], double[], BitSet)} for the first {@code length} points only, so
+     * columns with spare capacity can be passed as they are. Validated rectangles override this one.
+     *
+     * @throws IllegalArgumentException if either column is shorter than {@code length}.
+     */
+    default void containsAll(double[] xs, double[] ys, int length, BitSet results) {
+        BatchKernels.requireLength(xs, ys, length);
+        for (int i = 0; i < length; i++) {
+            results.set(i, contains(xs[i], ys[i]));
+        }
+    }
+
+    /**
+     * Same as {@link #containsAll(double[], double[], BitSet)} for the points in a {@link PointBuffer}.
+     * Heap buffers hand their columns straight to the array version; off-heap ones are tested point by point.
+     */
+    default void containsAll(PointBuffer points, BitSet results) {
+        if (points.hasArray()) {
+            containsAll(points.xArray(), points.yArray(), points.size(), results);
+            return;
+        }
+        for (int i = 0; i < points.size(); i++) {
+            results.set(i, contains(points.x(i), points.y(i)));
+        }
+    }
+
+    /**
+     * Same as {@link #containsAll(double[], double[], BitSet)} for a single-precision batch; the answers are
+     * those for the points widened to double.
+     */
+    default void containsAll(FloatPointBatch points, BitSet results) {
+        for (int i = 0; i < points.size(); i++) {
+            results.set(i, contains(points.x(i), points.y(i)));
+        }
+    }
+
     default BoundingBox getBoundingBox() {
         List<Point> points = getCoordinates();
         if (points == null || points.isEmpty()) {
@@ -27,4 +88,4 @@ public interface Shape {
         }
         return new BoundingBox(new Point(minX, minY), new Point(maxX, maxY));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.properclever.pir.domain;
+
+import com.properclever.pir.util.EdgeCollapser;
+import com.properclever.pir.util.GeneralGeomTools;
+import com.properclever.pir.util.OrthogonalGeomTools;
+import com.properclever.pir.util.RejectionReason;
+
+import java.util.List;
+
+/**
+ * Exception-free factories for the rectangle types. Invalid input comes back as a
+ * {@link ValidationResult.Rejected} carrying the rule it broke, so callers that expect plenty of invalid
+ * shapes (the solutions, batch and server modes) never pay for building and unwinding an exception.
+ * <p>
+ * The public rectangle constructors run the same validation and throw on rejection, for callers that prefer that.
+ */
+public final class Shapes {
+    private static final OrthogonalGeomTools ORTHOGONAL_TOOLS = new OrthogonalGeomTools();
+    private static final GeneralGeomTools GENERAL_TOOLS = new GeneralGeomTools();
+    // rejections carry no shape, so one shared instance per reason serves every shape type
+    private static final ValidationResult.Rejected<?>[] REJECTED = new ValidationResult.Rejected<?>[RejectionReason.values().length];
+
+    static {
+        for (RejectionReason reason : RejectionReason.values()) {
+            REJECTED[reason.ordinal()] = new ValidationResult.Rejected<>(reason);
+        }
+    }
+
+    private Shapes() {
+    }
+
+    public static ValidationResult<OrthogonalRectangle> tryOrthogonal(List<Point> points) {
+        return tryOrthogonal(points == null ? null : PointBuffer.of(points));
+    }
+
+    public static ValidationResult<OrthogonalRectangle> tryOrthogonal(PointBuffer points) {
+        RejectionReason reason = checkOrthogonal(points);
+        if (reason != null) {
+            return rejected(reason);
+        }
+        // since we know the shape is an orthogonal rectangle, the bounding box must also be valid
+        return new ValidationResult.Valid<>(new OrthogonalRectangle(points.getBoundingBox()));
+    }
+
+    // null if the points form an orthogonal rectangle, otherwise the first rule they broke
+    static RejectionReason checkOrthogonal(PointBuffer points) {
+        return ORTHOGONAL_TOOLS.validate(points);
+    }
+
+    public static ValidationResult<GeneralRectangle> tryGeneral(List<Point> points) {
+        return tryGeneral(points == null ? null : PointBuffer.of(points));
+    }
+
+    /**
+     * Validates the points as a general rectangle in one pass: the edge collapser checks every turn (stopping at
+     * the first bad one) while keeping no more collapsed points than a rectangle can have, and the corners go
+     * straight from that fixed-size scratch buffer into the rectangle's precompiled kernel.
+     */
+    public static ValidationResult<GeneralRectangle> tryGeneral(PointBuffer points) {
+        PointBuffer corners = PointBuffer.allocate(EdgeCollapser.RECTANGLE_LIMIT);
+        RejectionReason reason = collapseGeneral(points, corners);
+        return reason != null ? rejected(reason) : new ValidationResult.Valid<>(new GeneralRectangle(corners));
+    }
+
+    /**
+     * Collapses the points into {@code corners}, a scratch buffer of at least {@link EdgeCollapser#RECTANGLE_LIMIT},
+     * and leaves just the four corners in it, in winding order; returns null, or the first rule the points broke.
+     */
+    static RejectionReason collapseGeneral(PointBuffer points, PointBuffer corners) {
+        RejectionReason reason = EdgeCollapser.collapse(points, corners, EdgeCollapser.RECTANGLE_LIMIT);
+        if (reason != null) {
+            return reason;
+        }
+        int first = GENERAL_TOOLS.findFirstCorner(corners);
+        if (first < 0) {
+            return RejectionReason.WRONG_VERTEX_COUNT;
+        }
+        for (int i = 0; i < 4; i++) {
+            corners.set(i, corners.x(first + i), corners.y(first + i));
+        }
+        while (corners.size() > 4) {
+            corners.removeLast();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S extends Shape> ValidationResult<S> rejected(RejectionReason reason) {
+        return (ValidationResult<S>) REJECTED[reason.ordinal()];
+    }
+}
@@ -0,0 +1,35 @@
+package com.properclever.pir.domain;
+
+import com.properclever.pir.util.RejectionReason;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The outcome of validating points as a shape: either the {@link Valid} shape or the {@link Rejected} reason.
+ * Returned by the {@link Shapes} factories so that invalid input is an ordinary value rather than an exception.
+ */
+public sealed interface ValidationResult<S extends Shape> {
+
+    record Valid<S extends Shape>(S shape) implements ValidationResult<S> {
+    }
+
+    record Rejected<S extends Shape>(RejectionReason reason) implements ValidationResult<S> {
+    }
+
+    default boolean isValid() {
+        return this instanceof Valid;
+    }
+
+    default Optional<S> toOptional() {
+        return this instanceof Valid<S>(S shape) ? Optional.of(shape) : Optional.empty();
+    }
+
+    /** Returns the shape, or throws the exception built from the rejection reason. */
+    default <X extends Exception> S orElseThrow(Function<RejectionReason, X> exception) throws X {
+        return switch (this) {
+            case Valid<S>(S shape) -> shape;
+            case Rejected<S>(RejectionReason reason) -> throw exception.apply(reason);
+        };
+    }
+}
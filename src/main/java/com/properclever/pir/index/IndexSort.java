@@ -0,0 +1,62 @@
+package com.properclever.pir.index;
+
+/**
+ * Sorts an array of ids by a primitive key without boxing either of them.
+ * A plain quicksort (median of three, insertion sort for short runs) is all the bulk loaders need.
+ */
+final class IndexSort {
+    private static final int INSERTION_THRESHOLD = 16;
+
+    private IndexSort() {
+    }
+
+    /** Sorts {@code ids[from, to)} so that {@code keys[ids[i]]} is ascending. */
+    static void sort(int[] ids, double[] keys, int from, int to) {
+        while (to - from > INSERTION_THRESHOLD) {
+            int mid = (from + to) >>> 1;
+            // median of three into 'mid', then use it as the pivot
+            if (keys[ids[mid]] < keys[ids[from]]) swap(ids, mid, from);
+            if (keys[ids[to - 1]] < keys[ids[from]]) swap(ids, to - 1, from);
+            if (keys[ids[to - 1]] < keys[ids[mid]]) swap(ids, to - 1, mid);
+            double pivot = keys[ids[mid]];
+
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (keys[ids[i]] < pivot) i++;
+                while (keys[ids[j]] > pivot) j--;
+                if (i <= j) {
+                    swap(ids, i++, j--);
+                }
+            }
+            // recurse into the smaller half, loop on the larger to bound the stack depth
+            if (j + 1 - from < to - i) {
+                sort(ids, keys, from, j + 1);
+                from = i;
+            } else {
+                sort(ids, keys, i, to);
+                to = j + 1;
+            }
+        }
+        insertionSort(ids, keys, from, to);
+    }
+
+    private static void insertionSort(int[] ids, double[] keys, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int id = ids[i];
+            double key = keys[id];
+            int j = i - 1;
+            while (j >= from && keys[ids[j]] > key) {
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            ids[j + 1] = id;
+        }
+    }
+
+    private static void swap(int[] ids, int a, int b) {
+        int tmp = ids[a];
+        ids[a] = ids[b];
+        ids[b] = tmp;
+    }
+}
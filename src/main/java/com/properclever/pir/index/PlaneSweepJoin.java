@@ -0,0 +1,254 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A spatial join of many points against many validated shapes: finds every (point, shape) pair where the shape
+ * strictly contains the point, without testing every pair.
+ * <p>
+ * Both inputs are sorted by x (shapes by the left edge of their bounding box) and swept left to right. A shape
+ * becomes active once the sweep passes its left edge and is dropped lazily, the next time it is looked at after
+ * the sweep has passed its right edge. Active shapes are kept by y in horizontal slabs over the shapes' overall
+ * extent, each shape in every slab its box overlaps, so a point only looks at the active shapes in its own slab.
+ * Candidates whose boxes strictly contain the point are refined with {@link Shape#contains(double, double)},
+ * except for {@link OrthogonalRectangle}s, which are their boxes.
+ * <p>
+ * Besides the shapes, a join holds the sorted point order and the active shapes, so memory does not depend on
+ * the number of matches: pairs go straight to the consumer, or are produced lazily by {@link #stream}.
+ * Points are identified by their index in the buffer and shapes by their position in the list, as in
+ * {@link SpatialIndex}.
+ */
+public final class PlaneSweepJoin<S extends Shape> {
+    private static final int MAX_SLABS = 1 << 16;
+
+    /** Receives one matching pair. */
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int pointIndex, int shapeIndex);
+    }
+
+    /** A matching pair: shape {@code shapeIndex} strictly contains point {@code pointIndex}. */
+    public record Match(int pointIndex, int shapeIndex) {
+    }
+
+    private final List<S> shapes;
+
+    // bounding box of each shape, indexed by shape id
+    private final double[] shapeMinX;
+    private final double[] shapeMinY;
+    private final double[] shapeMaxX;
+    private final double[] shapeMaxY;
+    // the box test is the whole containment test
+    private final boolean[] boxIsShape;
+    // shape ids in ascending order of shapeMinX
+    private final int[] shapeOrder;
+
+    // the y extent of all shapes, cut into equal slabs
+    private final double minY;
+    private final double maxY;
+    private final int slabCount;
+    private final double slabScale;
+
+    public PlaneSweepJoin(List<S> shapes) {
+        if (shapes == null || shapes.isEmpty()) {
+            throw new IllegalArgumentException("Shapes list cannot be null or empty");
+        }
+        this.shapes = List.copyOf(shapes);
+        int n = this.shapes.size();
+        shapeMinX = new double[n];
+        shapeMinY = new double[n];
+        shapeMaxX = new double[n];
+        shapeMaxY = new double[n];
+        boxIsShape = new boolean[n];
+        double allMinY = Double.POSITIVE_INFINITY;
+        double allMaxY = Double.NEGATIVE_INFINITY;
+        double totalHeight = 0;
+        for (int id = 0; id < n; id++) {
+            S shape = this.shapes.get(id);
+            BoundingBox bbox = shape.getBoundingBox();
+            shapeMinX[id] = bbox.minPoint().x();
+            shapeMinY[id] = bbox.minPoint().y();
+            shapeMaxX[id] = bbox.maxPoint().x();
+            shapeMaxY[id] = bbox.maxPoint().y();
+            boxIsShape[id] = shape instanceof OrthogonalRectangle;
+            allMinY = Math.min(allMinY, shapeMinY[id]);
+            allMaxY = Math.max(allMaxY, shapeMaxY[id]);
+            totalHeight += shapeMaxY[id] - shapeMinY[id];
+        }
+        shapeOrder = identity(n);
+        IndexSort.sort(shapeOrder, shapeMinX, 0, n);
+
+        minY = allMinY;
+        maxY = allMaxY;
+        // slabs about as tall as the average shape, so each shape sits in a slab or two
+        double slabs = totalHeight > 0 ? (allMaxY - allMinY) / (totalHeight / n) : 1;
+        slabCount = (int) Math.max(1, Math.min(Math.min(n, MAX_SLABS), slabs));
+        slabScale = allMaxY > allMinY ? slabCount / (allMaxY - allMinY) : 0;
+    }
+
+    public int size() {
+        return shapes.size();
+    }
+
+    public S getShape(int id) {
+        return shapes.get(id);
+    }
+
+    /**
+     * Calls {@code action} once for every point in {@code points} and every shape strictly containing it.
+     * The pairs come in ascending x of the points; points with a NaN coordinate match nothing.
+     */
+    public void join(PointBuffer points, PairConsumer action) {
+        Sweep sweep = new Sweep(points);
+        while (sweep.advance(action)) {
+            // the sweep calls action as it goes
+        }
+    }
+
+    /**
+     * Same pairs as {@link #join}, produced lazily: the sweep only runs as far as the stream is consumed,
+     * and holds the matches of at most one point at a time.
+     */
+    public Stream<Match> stream(PointBuffer points) {
+        Sweep sweep = new Sweep(points);
+        Spliterator<Match> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            // the matches of the current point, waiting to be handed out
+            private int[] pending = new int[8];
+            private int pendingSize;
+            private int pendingNext;
+            private int pendingPoint;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Match> action) {
+                while (pendingNext == pendingSize) {
+                    pendingSize = 0;
+                    pendingNext = 0;
+                    if (!sweep.advance(this::hold)) {
+                        return false;
+                    }
+                }
+                action.accept(new Match(pendingPoint, pending[pendingNext++]));
+                return true;
+            }
+
+            private void hold(int pointIndex, int shapeIndex) {
+                if (pendingSize == pending.length) {
+                    pending = Arrays.copyOf(pending, pendingSize * 2);
+                }
+                pendingPoint = pointIndex;
+                pending[pendingSize++] = shapeIndex;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    private int slabOf(double y) {
+        return Math.min(slabCount - 1, Math.max(0, (int) ((y - minY) * slabScale)));
+    }
+
+    private static int[] identity(int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    /** The state of one pass over a batch of points. */
+    private final class Sweep {
+        private final PointBuffer points;
+        // point indices in ascending x, NaNs left out
+        private final int[] pointOrder;
+        private final int pointCount;
+        private int nextPoint;
+        private int nextShape;
+
+        // active shape ids per slab, with lazy deletion
+        private final int[][] slabs = new int[slabCount][];
+        private final int[] slabSizes = new int[slabCount];
+
+        Sweep(PointBuffer points) {
+            this.points = points;
+            double[] xs;
+            if (points.hasArray()) {
+                xs = points.xArray();
+            } else {
+                xs = new double[points.size()];
+                for (int i = 0; i < xs.length; i++) {
+                    xs[i] = points.x(i);
+                }
+            }
+            int[] order = new int[points.size()];
+            int count = 0;
+            for (int i = 0; i < order.length; i++) {
+                if (!Double.isNaN(xs[i]) && !Double.isNaN(points.y(i))) {
+                    order[count++] = i;
+                }
+            }
+            IndexSort.sort(order, xs, 0, count);
+            this.pointOrder = order;
+            this.pointCount = count;
+        }
+
+        /** Reports the matches of the next point in x order, if there is one. */
+        boolean advance(PairConsumer action) {
+            if (nextPoint == pointCount) {
+                return false;
+            }
+            int point = pointOrder[nextPoint++];
+            double x = points.x(point);
+            double y = points.y(point);
+            // activate every shape whose box starts strictly left of the sweep line
+            while (nextShape < shapeOrder.length && shapeMinX[shapeOrder[nextShape]] < x) {
+                activate(shapeOrder[nextShape++], x);
+            }
+            if (!(y > minY && y < maxY)) {
+                return true;
+            }
+            int slab = slabOf(y);
+            int[] active = slabs[slab];
+            int size = slabSizes[slab];
+            for (int i = 0; i < size; ) {
+                int id = active[i];
+                if (shapeMaxX[id] <= x) {
+                    // the sweep has passed this shape for good
+                    active[i] = active[--size];
+                    continue;
+                }
+                if (y > shapeMinY[id] && y < shapeMaxY[id] && (boxIsShape[id] || shapes.get(id).contains(x, y))) {
+                    action.accept(point, id);
+                }
+                i++;
+            }
+            slabSizes[slab] = size;
+            return true;
+        }
+
+        private void activate(int id, double x) {
+            if (shapeMaxX[id] <= x) {
+                // already behind the sweep line
+                return;
+            }
+            for (int slab = slabOf(shapeMinY[id]), last = slabOf(shapeMaxY[id]); slab <= last; slab++) {
+                int[] active = slabs[slab];
+                if (active == null) {
+                    active = slabs[slab] = new int[8];
+                } else if (slabSizes[slab] == active.length) {
+                    active = slabs[slab] = Arrays.copyOf(active, active.length * 2);
+                }
+                active[slabSizes[slab]++] = id;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.PointBuffer;
+
+/**
+ * The order in which a batch of points is run against a {@link SpatialIndex}
+ * (see {@link SpatialIndex#countContaining(PointBuffer, QueryOrder)}).
+ * <p>
+ * Points in random order send consecutive queries to unrelated parts of the index, so each one walks nodes
+ * (or grid cells and shapes) that have dropped out of the cache since the last time. Sorting the batch along a
+ * space-filling curve over the index's bounding box makes consecutive queries near neighbours, which mostly
+ * touch the same, still cached, parts of the index. The sort is O(n log n) on top of the queries, so it pays
+ * off for large batches against large indexes; {@code benchmarks/QueryOrderBenchmark} measures where.
+ */
+public enum QueryOrder {
+    /** The points as given, with no pre-pass. */
+    INPUT,
+    /** Z-order: the bits of the cell coordinates interleaved. Cheap keys, with occasional long jumps. */
+    MORTON,
+    /** Hilbert curve: consecutive cells are always adjacent, at a slightly higher cost per key. */
+    HILBERT;
+
+    // cells per axis of the grid the keys are computed on, so a key fits 32 bits (and a double exactly)
+    static final int BITS = 16;
+    private static final int CELLS = 1 << BITS;
+
+    /**
+     * The indices of {@code points} in the order to query them. Keys come from a {@value #BITS}-bit grid over
+     * {@code extent}; points outside it are clamped to its border and points with equal keys keep no particular
+     * order.
+     */
+    public int[] sort(PointBuffer points, BoundingBox extent) {
+        int n = points.size();
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (this == INPUT) {
+            return order;
+        }
+        double minX = extent.minPoint().x();
+        double minY = extent.minPoint().y();
+        double width = extent.maxPoint().x() - minX;
+        double height = extent.maxPoint().y() - minY;
+        double scaleX = width > 0 ? CELLS / width : 0;
+        double scaleY = height > 0 ? CELLS / height : 0;
+        double[] keys = new double[n];
+        for (int i = 0; i < n; i++) {
+            int cellX = cell((points.x(i) - minX) * scaleX);
+            int cellY = cell((points.y(i) - minY) * scaleY);
+            keys[i] = this == MORTON ? mortonKey(cellX, cellY) : hilbertKey(cellX, cellY);
+        }
+        IndexSort.sort(order, keys, 0, n);
+        return order;
+    }
+
+    private static int cell(double scaled) {
+        // NaN lands in cell 0, like any other point off the grid
+        return Math.min(CELLS - 1, Math.max(0, (int) scaled));
+    }
+
+    static long mortonKey(int cellX, int cellY) {
+        return spread(cellX) | spread(cellY) << 1;
+    }
+
+    // moves bit i of the low 16 bits to bit 2i
+    private static long spread(int value) {
+        long v = value & 0xFFFFL;
+        v = (v | v << 8) & 0x00FF00FFL;
+        v = (v | v << 4) & 0x0F0F0F0FL;
+        v = (v | v << 2) & 0x33333333L;
+        v = (v | v << 1) & 0x55555555L;
+        return v;
+    }
+
+    static long hilbertKey(int cellX, int cellY) {
+        int x = cellX;
+        int y = cellY;
+        long key = 0;
+        for (int s = CELLS >> 1; s > 0; s >>= 1) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            key += (long) s * s * ((3 * rx) ^ ry);
+            // rotate the quadrant so the curve inside it starts and ends where the outer curve needs
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = CELLS - 1 - x;
+                    y = CELLS - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,56 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A static index over many validated shapes, answering "which shapes strictly contain this point?".
+ * Shapes are identified by their position (id) in the list the index was built from.
+ */
+public interface SpatialIndex<S extends Shape> {
+    /** Number of shapes in the index. */
+    int size();
+
+    /** Returns the shape with the given id (its position in the input list). */
+    S getShape(int id);
+
+    /** The bounding box of every shape in the index. */
+    BoundingBox getBoundingBox();
+
+    /**
+     * Calls {@code action} with the id of every shape that strictly contains (x, y).
+     * Bounding boxes are only used to find candidates; each candidate is refined with {@link Shape#contains}.
+     */
+    void forEachContaining(double x, double y, IntConsumer action);
+
+    /**
+     * For a whole batch: element i of the result is the number of shapes strictly containing point i.
+     * The queries run in the given {@code order} (see {@link QueryOrder}), computed over this index's bounding
+     * box, and each count is written back at its point's original position.
+     */
+    default int[] countContaining(PointBuffer points, QueryOrder order) {
+        int[] counts = new int[points.size()];
+        // one counter for the whole batch, so the queries allocate nothing
+        int[] found = new int[1];
+        IntConsumer counter = _ -> found[0]++;
+        for (int point : order.sort(points, getBoundingBox())) {
+            found[0] = 0;
+            forEachContaining(points.x(point), points.y(point), counter);
+            counts[point] = found[0];
+        }
+        return counts;
+    }
+
+    /** Returns every shape that strictly contains the point, in no particular order. */
+    default List<S> query(Point point) {
+        List<S> found = new ArrayList<>();
+        forEachContaining(point.x(), point.y(), id -> found.add(getShape(id)));
+        return found;
+    }
+}
@@ -0,0 +1,225 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.Shape;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A static R-tree, bulk loaded with the Sort-Tile-Recursive (STR) algorithm from each shape's bounding box.
+ * <p>
+ * STR sorts the entries by the x centre of their boxes, cuts them into vertical slabs, sorts each slab by
+ * y centre and packs runs of {@code nodeCapacity} entries into nodes. The same packing is repeated over the
+ * nodes until a single root remains. The result has nearly full, barely overlapping nodes, so a point query
+ * visits O(log n) nodes before refining the k candidates whose boxes strictly contain it.
+ * <p>
+ * Nodes live in flat primitive arrays (no node objects) and queries recurse over node ids without allocating.
+ */
+public final class StrRTree<S extends Shape> implements SpatialIndex<S> {
+    public static final int DEFAULT_NODE_CAPACITY = 16;
+
+    private final List<S> shapes;
+    private final int nodeCapacity;
+
+    // bounding box of each shape, indexed by shape id
+    private final double[] shapeMinX;
+    private final double[] shapeMinY;
+    private final double[] shapeMaxX;
+    private final double[] shapeMaxY;
+
+    // node boxes and child ranges; nodes [0, leafCount) are leaves whose children are shape ids,
+    // the rest are internal nodes whose children are node ids
+    private double[] nodeMinX;
+    private double[] nodeMinY;
+    private double[] nodeMaxX;
+    private double[] nodeMaxY;
+    private int[] childStart;
+    private int[] childCount;
+    private int nodeCount;
+    private int[] children;
+    private int childrenSize;
+    private int leafCount;
+    private final int root;
+
+    public StrRTree(List<S> shapes) {
+        this(shapes, DEFAULT_NODE_CAPACITY);
+    }
+
+    public StrRTree(List<S> shapes, int nodeCapacity) {
+        if (shapes == null || shapes.isEmpty()) {
+            throw new IllegalArgumentException("Shapes list cannot be null or empty");
+        }
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("Node capacity must be at least 2, but got %d".formatted(nodeCapacity));
+        }
+        this.shapes = List.copyOf(shapes);
+        this.nodeCapacity = nodeCapacity;
+
+        int n = this.shapes.size();
+        shapeMinX = new double[n];
+        shapeMinY = new double[n];
+        shapeMaxX = new double[n];
+        shapeMaxY = new double[n];
+        for (int id = 0; id < n; id++) {
+            BoundingBox bbox = this.shapes.get(id).getBoundingBox();
+            shapeMinX[id] = bbox.minPoint().x();
+            shapeMinY[id] = bbox.minPoint().y();
+            shapeMaxX[id] = bbox.maxPoint().x();
+            shapeMaxY[id] = bbox.maxPoint().y();
+        }
+
+        // every shape is a child of one leaf, and every node but the root is a child of one parent
+        int estimatedNodes = 2 * (n / (nodeCapacity - 1) + 1) + 16;
+        nodeMinX = new double[estimatedNodes];
+        nodeMinY = new double[estimatedNodes];
+        nodeMaxX = new double[estimatedNodes];
+        nodeMaxY = new double[estimatedNodes];
+        childStart = new int[estimatedNodes];
+        childCount = new int[estimatedNodes];
+        children = new int[n + estimatedNodes];
+
+        // leaf level: entries are the shapes themselves
+        int[] level = packLevel(identity(n), shapeMinX, shapeMinY, shapeMaxX, shapeMaxY);
+        leafCount = nodeCount;
+        // internal levels: entries are the nodes created by the previous pass
+        while (level.length > 1) {
+            level = packLevel(level, nodeMinX, nodeMinY, nodeMaxX, nodeMaxY);
+        }
+        root = level[0];
+    }
+
+    /**
+     * Packs {@code entries} (ids into the given box arrays) into parent nodes and returns the new node ids.
+     */
+    private int[] packLevel(int[] entries, double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        int count = entries.length;
+        double[] centreX = new double[count];
+        double[] centreY = new double[count];
+        for (int i = 0; i < count; i++) {
+            int entry = entries[i];
+            centreX[i] = (minX[entry] + maxX[entry]) * 0.5;
+            centreY[i] = (minY[entry] + maxY[entry]) * 0.5;
+        }
+        int[] order = identity(count);
+        IndexSort.sort(order, centreX, 0, count);
+
+        int groups = (count + nodeCapacity - 1) / nodeCapacity;
+        int slabs = (int) Math.ceil(Math.sqrt(groups));
+        int slabSize = slabs * nodeCapacity;
+
+        int[] parents = new int[groups + slabs];
+        int parentCount = 0;
+        for (int slabStart = 0; slabStart < count; slabStart += slabSize) {
+            int slabEnd = Math.min(count, slabStart + slabSize);
+            IndexSort.sort(order, centreY, slabStart, slabEnd);
+            for (int groupStart = slabStart; groupStart < slabEnd; groupStart += nodeCapacity) {
+                int groupEnd = Math.min(slabEnd, groupStart + nodeCapacity);
+                parents[parentCount++] = addNode(entries, order, groupStart, groupEnd, minX, minY, maxX, maxY);
+            }
+        }
+        return Arrays.copyOf(parents, parentCount);
+    }
+
+    private int addNode(int[] entries, int[] order, int from, int to,
+                        double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        if (nodeCount == childStart.length) {
+            growNodes();
+        }
+        int node = nodeCount++;
+        double boxMinX = Double.POSITIVE_INFINITY;
+        double boxMinY = Double.POSITIVE_INFINITY;
+        double boxMaxX = Double.NEGATIVE_INFINITY;
+        double boxMaxY = Double.NEGATIVE_INFINITY;
+        childStart[node] = childrenSize;
+        childCount[node] = to - from;
+        if (childrenSize + (to - from) > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + (to - from)));
+        }
+        for (int i = from; i < to; i++) {
+            int entry = entries[order[i]];
+            children[childrenSize++] = entry;
+            boxMinX = Math.min(boxMinX, minX[entry]);
+            boxMinY = Math.min(boxMinY, minY[entry]);
+            boxMaxX = Math.max(boxMaxX, maxX[entry]);
+            boxMaxY = Math.max(boxMaxY, maxY[entry]);
+        }
+        nodeMinX[node] = boxMinX;
+        nodeMinY[node] = boxMinY;
+        nodeMaxX[node] = boxMaxX;
+        nodeMaxY[node] = boxMaxY;
+        return node;
+    }
+
+    private void growNodes() {
+        int capacity = childStart.length * 2;
+        nodeMinX = Arrays.copyOf(nodeMinX, capacity);
+        nodeMinY = Arrays.copyOf(nodeMinY, capacity);
+        nodeMaxX = Arrays.copyOf(nodeMaxX, capacity);
+        nodeMaxY = Arrays.copyOf(nodeMaxY, capacity);
+        childStart = Arrays.copyOf(childStart, capacity);
+        childCount = Arrays.copyOf(childCount, capacity);
+    }
+
+    private static int[] identity(int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    @Override
+    public int size() {
+        return shapes.size();
+    }
+
+    @Override
+    public S getShape(int id) {
+        return shapes.get(id);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(new Point(nodeMinX[root], nodeMinY[root]), new Point(nodeMaxX[root], nodeMaxY[root]));
+    }
+
+    @Override
+    public void forEachContaining(double x, double y, IntConsumer action) {
+        // a point strictly inside a shape is strictly inside its box, and so inside every ancestor's box
+        if (x > nodeMinX[root] && x < nodeMaxX[root] && y > nodeMinY[root] && y < nodeMaxY[root]) {
+            search(root, x, y, action);
+        }
+    }
+
+    private void search(int node, double x, double y, IntConsumer action) {
+        int end = childStart[node] + childCount[node];
+        if (node < leafCount) {
+            for (int i = childStart[node]; i < end; i++) {
+                int id = children[i];
+                if (x > shapeMinX[id] && x < shapeMaxX[id] && y > shapeMinY[id] && y < shapeMaxY[id]
+                        && shapes.get(id).contains(x, y)) {
+                    action.accept(id);
+                }
+            }
+        } else {
+            for (int i = childStart[node]; i < end; i++) {
+                int child = children[i];
+                if (x > nodeMinX[child] && x < nodeMaxX[child] && y > nodeMinY[child] && y < nodeMaxY[child]) {
+                    search(child, x, y, action);
+                }
+            }
+        }
+    }
+
+    /** Height of the tree, counting the leaf level as 1. */
+    public int height() {
+        int height = 1;
+        for (int node = root; node >= leafCount; node = children[childStart[node]]) {
+            height++;
+        }
+        return height;
+    }
+}
@@ -0,0 +1,196 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.Shape;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A flat uniform grid over the shapes' bounding boxes, for dense sets of similar-sized (mostly orthogonal)
+ * rectangles where a tree is more machinery than the data needs.
+ * <p>
+ * Each cell lists the ids of the shapes whose boxes overlap it, stored CSR style in two int arrays
+ * ({@code cellStart} offsets into {@code cellShapes}). A query computes its cell directly from the
+ * coordinates and scans that one short list, refining candidates with the exact {@link Shape#contains}.
+ * <p>
+ * By default the cell size is the median box width and height, so a typical shape overlaps about four cells.
+ * If that would produce more than {@value #MAX_CELLS_PER_SHAPE} cells per shape (e.g. a few huge outliers
+ * stretching the extent) the cells are scaled up uniformly to keep memory linear in the number of shapes.
+ */
+public final class UniformGridIndex<S extends Shape> implements SpatialIndex<S> {
+    static final int MAX_CELLS_PER_SHAPE = 4;
+
+    private final List<S> shapes;
+
+    // bounding box of each shape, indexed by shape id
+    private final double[] shapeMinX;
+    private final double[] shapeMinY;
+    private final double[] shapeMaxX;
+    private final double[] shapeMaxY;
+
+    private final double originX;
+    private final double originY;
+    private final double extentMaxX;
+    private final double extentMaxY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellShapes;
+
+    /** Builds a grid whose cell size is chosen from the distribution of box sizes. */
+    public UniformGridIndex(List<S> shapes) {
+        this(shapes, Double.NaN, Double.NaN);
+    }
+
+    /** Builds a grid with an explicit cell size, e.g. to compare tunings against the automatic choice. */
+    public UniformGridIndex(List<S> shapes, double cellWidth, double cellHeight) {
+        if (shapes == null || shapes.isEmpty()) {
+            throw new IllegalArgumentException("Shapes list cannot be null or empty");
+        }
+        this.shapes = List.copyOf(shapes);
+
+        int n = this.shapes.size();
+        shapeMinX = new double[n];
+        shapeMinY = new double[n];
+        shapeMaxX = new double[n];
+        shapeMaxY = new double[n];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int id = 0; id < n; id++) {
+            BoundingBox bbox = this.shapes.get(id).getBoundingBox();
+            shapeMinX[id] = bbox.minPoint().x();
+            shapeMinY[id] = bbox.minPoint().y();
+            shapeMaxX[id] = bbox.maxPoint().x();
+            shapeMaxY[id] = bbox.maxPoint().y();
+            minX = Math.min(minX, shapeMinX[id]);
+            minY = Math.min(minY, shapeMinY[id]);
+            maxX = Math.max(maxX, shapeMaxX[id]);
+            maxY = Math.max(maxY, shapeMaxY[id]);
+        }
+        originX = minX;
+        originY = minY;
+        extentMaxX = maxX;
+        extentMaxY = maxY;
+
+        double width = maxX - minX;
+        double height = maxY - minY;
+        if (Double.isNaN(cellWidth) || Double.isNaN(cellHeight)) {
+            cellWidth = median(shapeMinX, shapeMaxX);
+            cellHeight = median(shapeMinY, shapeMaxY);
+        }
+        // guard against degenerate (zero-size) cells and cap the cell count at a few per shape
+        cellWidth = cellWidth > 0 ? cellWidth : Math.max(width, 1);
+        cellHeight = cellHeight > 0 ? cellHeight : Math.max(height, 1);
+        double maxCells = Math.max(1.0, (double) MAX_CELLS_PER_SHAPE * n);
+        double cells;
+        while ((cells = cellCount(width, cellWidth) * cellCount(height, cellHeight)) > maxCells) {
+            // the sqrt scale lands very close to the cap; the small extra covers floor() rounding
+            double scale = Math.sqrt(cells / maxCells) * 1.01;
+            cellWidth *= scale;
+            cellHeight *= scale;
+        }
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.columns = (int) cellCount(width, cellWidth);
+        this.rows = (int) cellCount(height, cellHeight);
+
+        // CSR build: count the overlaps per cell, prefix-sum into offsets, then fill
+        cellStart = new int[Math.multiplyExact(columns, rows) + 1];
+        for (int id = 0; id < n; id++) {
+            int c0 = column(shapeMinX[id]), c1 = column(shapeMaxX[id]);
+            int r0 = row(shapeMinY[id]), r1 = row(shapeMaxY[id]);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        cellShapes = new int[cellStart[columns * rows]];
+        int[] fill = Arrays.copyOf(cellStart, columns * rows);
+        for (int id = 0; id < n; id++) {
+            int c0 = column(shapeMinX[id]), c1 = column(shapeMaxX[id]);
+            int r0 = row(shapeMinY[id]), r1 = row(shapeMaxY[id]);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellShapes[fill[r * columns + c]++] = id;
+                }
+            }
+        }
+    }
+
+    private static double cellCount(double length, double cellSize) {
+        return Math.floor(length / cellSize) + 1;
+    }
+
+    private static double median(double[] min, double[] max) {
+        double[] sizes = new double[min.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = max[i] - min[i];
+        }
+        Arrays.sort(sizes);
+        return sizes[sizes.length / 2];
+    }
+
+    // the same mapping is used to build and to query, so a coordinate inside a box always
+    // lands in one of the columns/rows that box was registered in
+    private int column(double x) {
+        return Math.min(columns - 1, (int) ((x - originX) / cellWidth));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, (int) ((y - originY) / cellHeight));
+    }
+
+    @Override
+    public int size() {
+        return shapes.size();
+    }
+
+    @Override
+    public S getShape(int id) {
+        return shapes.get(id);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(new Point(originX, originY), new Point(extentMaxX, extentMaxY));
+    }
+
+    @Override
+    public void forEachContaining(double x, double y, IntConsumer action) {
+        if (!(x > originX && x < extentMaxX && y > originY && y < extentMaxY)) {
+            return;
+        }
+        int cell = row(y) * columns + column(x);
+        for (int i = cellStart[cell], end = cellStart[cell + 1]; i < end; i++) {
+            int id = cellShapes[i];
+            if (x > shapeMinX[id] && x < shapeMaxX[id] && y > shapeMinY[id] && y < shapeMaxY[id]
+                    && shapes.get(id).contains(x, y)) {
+                action.accept(id);
+            }
+        }
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /** Average number of shape ids per cell, a quick measure of how well the cell size fits the data. */
+    public double averageCellOccupancy() {
+        return (double) cellShapes.length / ((long) columns * rows);
+    }
+}
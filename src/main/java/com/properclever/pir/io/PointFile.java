@@ -0,0 +1,41 @@
+package com.properclever.pir.io;
+
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary point file: a fixed header followed by two columns of little-endian float64.
+ * <pre>
+ *   offset 0              int32   magic "PIRP"
+ *   offset 4              int32   format version
+ *   offset 8              int64   point count n
+ *   offset 16             n x float64   x coordinates
+ *   offset 16 + 8n        n x float64   y coordinates
+ * </pre>
+ * Columns (rather than interleaved pairs) keep each coordinate stream contiguous, which is what the
+ * batch containment kernels want, and let a reader map the file and index it directly.
+ */
+public final class PointFile {
+    public static final int MAGIC = 0x50524950; // the bytes "PIRP" when stored little-endian
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private PointFile() {
+    }
+
+    static long xOffset(long index) {
+        return HEADER_SIZE + index * Double.BYTES;
+    }
+
+    static long yOffset(long count, long index) {
+        return HEADER_SIZE + (count + index) * Double.BYTES;
+    }
+
+    static long fileSize(long count) {
+        return HEADER_SIZE + 2 * count * Double.BYTES;
+    }
+}
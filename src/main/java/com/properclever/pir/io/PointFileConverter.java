@@ -0,0 +1,64 @@
+package com.properclever.pir.io;
+
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.util.PointStringParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts the bracketed text format into a {@link PointFile}. Each non-blank line holds either a single
+ * point ({@code [x,y]}) or an array of points ({@code [[x0,y0],[x1,y1],...]}); points are written in order.
+ * If any line is bad the output file is left untouched.
+ */
+public final class PointFileConverter {
+
+    private PointFileConverter() {
+    }
+
+    /**
+     * @return the number of points written.
+     * @throws IllegalArgumentException if a line is not in the bracket format (the message names the line).
+     */
+    public static long convert(Path textInput, Path binaryOutput) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(textInput);
+             PointFileWriter out = new PointFileWriter(binaryOutput)) {
+            try {
+                copy(in, out);
+            } catch (IOException | RuntimeException e) {
+                // leave no truncated (but well-formed) output behind
+                out.abort();
+                throw e;
+            }
+            return out.getCount();
+        }
+    }
+
+    private static void copy(BufferedReader in, PointFileWriter out) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                if (trimmed.startsWith("[[")) {
+                    PointBuffer points = PointStringParser.parsePointBuffer(trimmed);
+                    for (int i = 0; i < points.size(); i++) {
+                        out.add(points.x(i), points.y(i));
+                    }
+                } else {
+                    Point point = PointStringParser.parsePoint(trimmed);
+                    out.add(point.x(), point.y());
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line %d: %s".formatted(lineNumber, e.getMessage()), e);
+            }
+        }
+    }
+}
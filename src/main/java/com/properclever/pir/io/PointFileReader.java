@@ -0,0 +1,98 @@
+package com.properclever.pir.io;
+
+import com.properclever.pir.domain.Shape;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * Memory-maps a {@link PointFile} and reads coordinates straight out of the mapping.
+ * Nothing is copied onto the heap and no Point is created per record, so the file can be far larger
+ * than the heap; the OS pages it in as the columns are scanned.
+ * <p>
+ * The mapping is released on {@link #close()}; the reader must not be used afterwards.
+ */
+public class PointFileReader implements AutoCloseable {
+    // points copied onto the heap per containsAll batch: big enough to amortise the call, small enough for L1/L2
+    static final int CHUNK_SIZE = 4096;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long count;
+
+    public PointFileReader(Path path) throws IOException {
+        this.arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < PointFile.HEADER_SIZE) {
+                throw new IOException("Not a point file (too short): " + path);
+            }
+            this.segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            if (segment.get(PointFile.INT, 0) != PointFile.MAGIC) {
+                throw new IOException("Not a point file (bad magic): " + path);
+            }
+            int version = segment.get(PointFile.INT, 4);
+            if (version != PointFile.VERSION) {
+                throw new IOException("Unsupported point file version %d: %s".formatted(version, path));
+            }
+            this.count = segment.get(PointFile.LONG, 8);
+            if (count < 0 || PointFile.fileSize(count) != size) {
+                throw new IOException("Point file is truncated or corrupt (count %d, %d bytes): %s".formatted(count, size, path));
+            }
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public double x(long index) {
+        return segment.get(PointFile.DOUBLE, PointFile.xOffset(Objects.checkIndex(index, count)));
+    }
+
+    public double y(long index) {
+        return segment.get(PointFile.DOUBLE, PointFile.yOffset(count, Objects.checkIndex(index, count)));
+    }
+
+    /**
+     * Sets bit i of {@code results} if point i of the file is strictly inside {@code shape} and clears it
+     * otherwise. The columns are copied out of the mapping {@value #CHUNK_SIZE} points at a time into two
+     * reused arrays and each chunk goes through {@link Shape#containsAll(double[], double[], int, BitSet)},
+     * so validated rectangles run their batch kernels.
+     *
+     * @throws IllegalStateException if the file holds more points than a BitSet can index.
+     */
+    public void containsAll(Shape shape, BitSet results) {
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many points for a BitSet: " + count);
+        }
+        int n = (int) count;
+        double[] xs = new double[Math.min(n, CHUNK_SIZE)];
+        double[] ys = new double[xs.length];
+        BitSet inside = new BitSet(xs.length);
+        for (int from = 0; from < n; from += xs.length) {
+            int length = Math.min(xs.length, n - from);
+            MemorySegment.copy(segment, PointFile.DOUBLE, PointFile.xOffset(from), xs, 0, length);
+            MemorySegment.copy(segment, PointFile.DOUBLE, PointFile.yOffset(count, from), ys, 0, length);
+            shape.containsAll(xs, ys, length, inside);
+            results.clear(from, from + length);
+            for (int i = inside.nextSetBit(0); i >= 0 && i < length; i = inside.nextSetBit(i + 1)) {
+                results.set(from + i);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,159 @@
+package com.properclever.pir.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams points into a {@link PointFile}. Since the y column starts after all n x values, x values go
+ * straight to the target file while y values are spooled to a temporary file and appended on {@link #close()},
+ * together with the final count in the header. Memory use is two small buffers regardless of the point count.
+ * <p>
+ * Everything is written to a temporary file next to the target, which replaces the target only when
+ * {@link #close()} completes; {@link #abort()} discards it instead, so a failed write never leaves a
+ * well-formed but truncated file behind (or clobbers an existing one).
+ */
+public class PointFileWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final Path targetPath;
+    private final FileChannel target;
+    private final Path spoolPath;
+    private final FileChannel spool;
+    private final ByteBuffer xBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer yBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long count;
+    private boolean closed;
+
+    public PointFileWriter(Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        String name = path.getFileName().toString();
+        Path targetPath = null;
+        FileChannel target = null;
+        Path spoolPath = null;
+        FileChannel spool = null;
+        try {
+            targetPath = Files.createTempFile(parent, name, ".tmp");
+            target = FileChannel.open(targetPath, StandardOpenOption.WRITE);
+            spoolPath = Files.createTempFile(parent, name, ".y");
+            spool = FileChannel.open(spoolPath, StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+            target.position(PointFile.HEADER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            // nothing else will clean up after a constructor that throws
+            try (FileChannel openTarget = target; FileChannel openSpool = spool) {
+                // just close whichever channels were opened
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            try {
+                if (spoolPath != null) {
+                    Files.deleteIfExists(spoolPath);
+                }
+                if (targetPath != null) {
+                    Files.deleteIfExists(targetPath);
+                }
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        this.targetPath = targetPath;
+        this.target = target;
+        this.spoolPath = spoolPath;
+        this.spool = spool;
+    }
+
+    public void add(double x, double y) throws IOException {
+        if (!xBuffer.hasRemaining()) {
+            drain(xBuffer, target);
+            drain(yBuffer, spool);
+        }
+        xBuffer.putDouble(x);
+        yBuffer.putDouble(y);
+        count++;
+    }
+
+    public void addAll(double[] xs, double[] ys) throws IOException {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Coordinate arrays differ in length: %d x, %d y".formatted(xs.length, ys.length));
+        }
+        for (int i = 0; i < xs.length; i++) {
+            add(xs[i], ys[i]);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (target; spool) {
+            drain(xBuffer, target);
+            drain(yBuffer, spool);
+            // append the y column (transferTo advances the target's position as it writes)
+            long copied = 0;
+            long size = spool.size();
+            while (copied < size) {
+                copied += spool.transferTo(copied, size - copied, target);
+            }
+            // and finally the header, now that the count is known; it sits at file offset 0,
+            // so the buffer position doubles as the file position for partial writes
+            ByteBuffer header = ByteBuffer.allocate(PointFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(PointFile.MAGIC).putInt(PointFile.VERSION).putLong(count).flip();
+            while (header.hasRemaining()) {
+                target.write(header, header.position());
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(targetPath);
+            throw e;
+        } finally {
+            Files.deleteIfExists(spoolPath);
+        }
+        try {
+            Files.move(targetPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(targetPath, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(targetPath);
+        }
+    }
+
+    /**
+     * Discards everything written so far: the temporary files are deleted and the target is left as it was.
+     * A later {@link #close()} does nothing.
+     */
+    public void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (target; spool) {
+            // just close them
+        } finally {
+            Files.deleteIfExists(spoolPath);
+            Files.deleteIfExists(targetPath);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.properclever.pir.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One EdgeCollapser pass; the outcome is {@code ACCEPTED} or the rejection reason. */
+@Name("com.properclever.pir.Collapse")
+@Label("Collapse Edges")
+@Description("Collapsing collinear edges and checking right angles for a general rectangle")
+public final class CollapseEvent extends PipelineEvent {
+}
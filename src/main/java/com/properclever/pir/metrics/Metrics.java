@@ -0,0 +1,361 @@
+package com.properclever.pir.metrics;
+
+import com.properclever.pir.util.CountingDiagnosticsSink;
+import com.properclever.pir.util.Diagnostics;
+import com.properclever.pir.util.DiagnosticsSink;
+import com.properclever.pir.util.RejectionReason;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide timing and counting for the pipeline: a {@link LatencyHistogram} per {@link Stage}, a
+ * histogram plus outcome counters per solution type, and the rejection reasons from the
+ * {@link Diagnostics} sink. Stages timed inside an {@link #attribute} scope are also recorded against
+ * that solution type, so the same stage can be compared across solutions.
+ * <p>
+ * Collection is off by default (enable with {@code -Dpir.metrics=true} or {@link #setEnabled}). The
+ * instrumented code brackets each stage as
+ * <pre>{@code
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop(Stage.PARSE, start);
+ * }</pre>
+ * and while disabled that is one volatile read and a predictable branch, with no clock reads.
+ * While enabled, timing single {@code contains} calls costs more than the call itself, so
+ * {@link Stage#CONTAINS} numbers are best read as counts and rough upper bounds.
+ */
+public final class Metrics {
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final String OBJECT_NAME = "com.properclever.pir:type=Metrics";
+
+    private static volatile boolean enabled;
+    // the sink chained on by the last setEnabled(true), until setEnabled(false)
+    private static Tee installed;
+
+    private static final LatencyHistogram[] STAGES = new LatencyHistogram[Stage.values().length];
+    private static final ConcurrentHashMap<String, SolutionMetrics> SOLUTIONS = new ConcurrentHashMap<>();
+    // the solution type the current thread's stages are attributed to, if any
+    private static final ThreadLocal<SolutionMetrics> CURRENT = new ThreadLocal<>();
+    private static final CountingDiagnosticsSink REJECTIONS = new CountingDiagnosticsSink();
+
+    static {
+        for (Stage stage : Stage.values()) {
+            STAGES[stage.ordinal()] = new LatencyHistogram();
+        }
+        if (Boolean.getBoolean("pir.metrics")) {
+            setEnabled(true);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns collection on or off. Enabling also chains a counting sink onto the current
+     * {@link Diagnostics} sink, so rejection reasons are counted without displacing a sink installed elsewhere.
+     * Disabling unchains it again, even if other sinks were chained on after it; if one of those hides it
+     * from view, it stays in place but stops counting for good, so no rejection is ever counted twice.
+     */
+    public static synchronized void setEnabled(boolean enable) {
+        if (enable == enabled) {
+            return;
+        }
+        if (enable) {
+            installed = new Tee(Diagnostics.sink(), REJECTIONS);
+            Diagnostics.setSink(installed);
+        } else {
+            installed.active = false;
+            Diagnostics.setSink(without(Diagnostics.sink(), installed));
+            installed = null;
+        }
+        enabled = enable;
+    }
+
+    // the chain with tee replaced by the sink it wraps, wherever it sits among the Tees
+    private static DiagnosticsSink without(DiagnosticsSink sink, Tee tee) {
+        if (sink == tee) {
+            return tee.first;
+        }
+        if (sink instanceof Tee outer) {
+            DiagnosticsSink inner = without(outer.first, tee);
+            if (inner != outer.first) {
+                Tee rebuilt = new Tee(inner, outer.second);
+                rebuilt.active = outer.active;
+                return rebuilt;
+            }
+        }
+        return sink;
+    }
+
+    /** Returns a start timestamp, or a marker telling {@link #stop} to do nothing when collection is off. */
+    public static long start() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    public static void stop(Stage stage, long start) {
+        if (start != NOT_TIMED) {
+            long nanos = System.nanoTime() - start;
+            STAGES[stage.ordinal()].record(nanos);
+            SolutionMetrics current = CURRENT.get();
+            if (current != null) {
+                current.stages[stage.ordinal()].record(nanos);
+            }
+        }
+    }
+
+    /**
+     * Attributes the stages timed on this thread to the given solution class (keyed by its simple name) until the
+     * returned scope is closed. Scopes nest; closing one restores the attribution it replaced. While collection
+     * is off this returns a shared scope that does nothing.
+     */
+    public static Attribution attribute(Class<?> solutionType) {
+        if (!enabled) {
+            return Attribution.NONE;
+        }
+        Attribution scope = new Attribution(CURRENT.get());
+        CURRENT.set(solutionMetrics(solutionType));
+        return scope;
+    }
+
+    /** Records one solve by the given solution class (keyed by its simple name) and its outcome. */
+    public static void stopSolve(Class<?> solutionType, long start, boolean inside) {
+        if (start != NOT_TIMED) {
+            long nanos = System.nanoTime() - start;
+            solutionMetrics(solutionType).record(nanos, inside);
+        }
+    }
+
+    private static SolutionMetrics solutionMetrics(Class<?> solutionType) {
+        return SOLUTIONS.computeIfAbsent(solutionType.getSimpleName(), _ -> new SolutionMetrics());
+    }
+
+    public static LatencyHistogram stage(Stage stage) {
+        return STAGES[stage.ordinal()];
+    }
+
+    /** The histogram of a stage timed on behalf of a solution type, empty if the type has not been seen. */
+    public static LatencyHistogram stage(Stage stage, String solutionType) {
+        SolutionMetrics metrics = SOLUTIONS.get(solutionType);
+        return metrics == null ? new LatencyHistogram() : metrics.stages[stage.ordinal()];
+    }
+
+    /** The solve histogram for a solution type, empty if it has not been seen. */
+    public static LatencyHistogram solution(String solutionType) {
+        SolutionMetrics metrics = SOLUTIONS.get(solutionType);
+        return metrics == null ? new LatencyHistogram() : metrics.latency;
+    }
+
+    public static long getRejected(RejectionReason reason) {
+        return REJECTIONS.getRejected(reason);
+    }
+
+    public static long getAccepted() {
+        return REJECTIONS.getAccepted();
+    }
+
+    /** Clears the histograms and solution counters (rejection counts are cumulative). */
+    public static void reset() {
+        for (LatencyHistogram histogram : STAGES) {
+            histogram.reset();
+        }
+        SOLUTIONS.clear();
+    }
+
+    /** A plain-text report of everything collected so far. */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append("Metrics ").append(enabled ? "(enabled)" : "(disabled)").append(System.lineSeparator());
+        for (Stage stage : Stage.values()) {
+            appendLine(out, "stage " + stage.name().toLowerCase(), STAGES[stage.ordinal()].toString());
+        }
+        new TreeMap<>(SOLUTIONS).forEach((type, metrics) -> {
+            appendLine(out, "solve " + type,
+                    "%s; %d inside, %d outside".formatted(metrics.latency, metrics.inside.sum(), metrics.outside.sum()));
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram histogram = metrics.stages[stage.ordinal()];
+                if (histogram.getCount() > 0) {
+                    appendLine(out, "  stage " + stage.name().toLowerCase(), histogram.toString());
+                }
+            }
+        });
+        appendLine(out, "accepted", Long.toString(REJECTIONS.getAccepted()));
+        REJECTIONS.getRejectedCounts().forEach((reason, count) -> {
+            if (count > 0) {
+                appendLine(out, "rejected " + reason.name().toLowerCase(), Long.toString(count));
+            }
+        });
+        return out.toString();
+    }
+
+    private static void appendLine(StringBuilder out, String name, String value) {
+        out.append("  %-28s %s".formatted(name, value)).append(System.lineSeparator());
+    }
+
+    /** Registers the {@link MetricsMXBean} with the platform MBean server, once. */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException _) {
+            // already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+    }
+
+    /** A scope from {@link #attribute}; close it on the thread that opened it. */
+    public static final class Attribution implements AutoCloseable {
+        private static final Attribution NONE = new Attribution(null);
+
+        private final SolutionMetrics previous;
+
+        private Attribution(SolutionMetrics previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (this == NONE) {
+                return;
+            }
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    private static final class SolutionMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder inside = new LongAdder();
+        final LongAdder outside = new LongAdder();
+        // the stages timed on behalf of this type, indexed by ordinal
+        final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+
+        SolutionMetrics() {
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = new LatencyHistogram();
+            }
+        }
+
+        void record(long nanos, boolean isInside) {
+            latency.record(nanos);
+            (isInside ? inside : outside).increment();
+        }
+    }
+
+    private static final class Tee implements DiagnosticsSink {
+        private final DiagnosticsSink first;
+        private final DiagnosticsSink second;
+        // cleared when metrics are disabled; a Tee is never reactivated
+        private volatile boolean active = true;
+
+        Tee(DiagnosticsSink first, DiagnosticsSink second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void rejected(RejectionReason reason) {
+            first.rejected(reason);
+            if (active) {
+                second.rejected(reason);
+            }
+        }
+
+        @Override
+        public void accepted() {
+            first.accepted();
+            if (active) {
+                second.accepted();
+            }
+        }
+    }
+
+    private static final class MBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getStageCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            for (Stage stage : Stage.values()) {
+                counts.put(stage.name(), stage(stage).getCount());
+            }
+            return counts;
+        }
+
+        @Override
+        public Map<String, Double> getStageP99Micros() {
+            Map<String, Double> p99 = new TreeMap<>();
+            for (Stage stage : Stage.values()) {
+                p99.put(stage.name(), stage(stage).getValueAtPercentile(99) / 1e3);
+            }
+            return p99;
+        }
+
+        @Override
+        public Map<String, Long> getSolutionStageCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            SOLUTIONS.forEach((type, metrics) -> {
+                for (Stage stage : Stage.values()) {
+                    counts.put(type + "." + stage.name(), metrics.stages[stage.ordinal()].getCount());
+                }
+            });
+            return counts;
+        }
+
+        @Override
+        public Map<String, Double> getSolutionStageP99Micros() {
+            Map<String, Double> p99 = new TreeMap<>();
+            SOLUTIONS.forEach((type, metrics) -> {
+                for (Stage stage : Stage.values()) {
+                    p99.put(type + "." + stage.name(), metrics.stages[stage.ordinal()].getValueAtPercentile(99) / 1e3);
+                }
+            });
+            return p99;
+        }
+
+        @Override
+        public Map<String, Long> getSolveCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            SOLUTIONS.forEach((type, metrics) -> counts.put(type, metrics.latency.getCount()));
+            return counts;
+        }
+
+        @Override
+        public Map<String, Long> getRejectionCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            REJECTIONS.getRejectedCounts().forEach((reason, count) -> counts.put(reason.name(), count));
+            return counts;
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.properclever.pir.metrics;
+
+import java.util.Map;
+
+/** The JMX view of {@link Metrics}, registered as {@code com.properclever.pir:type=Metrics}. */
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getStageCounts();
+
+    Map<String, Double> getStageP99Micros();
+
+    /** Stage counts split by the solution type they were timed for, keyed {@code SolutionType.STAGE}. */
+    Map<String, Long> getSolutionStageCounts();
+
+    /** Stage p99s split by solution type, keyed as {@link #getSolutionStageCounts()}. */
+    Map<String, Double> getSolutionStageP99Micros();
+
+    Map<String, Long> getSolveCounts();
+
+    Map<String, Long> getRejectionCounts();
+
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,15 @@
+package com.properclever.pir.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One PointStringParser call. Parsing happens before a solution type is chosen, so the type is empty;
+ * the vertex count is the number of points read and the outcome is {@code OK} or {@code ERROR}.
+ */
+@Name("com.properclever.pir.Parse")
+@Label("Parse Points")
+@Description("Parsing of a point list or a single point from text")
+public final class ParseEvent extends PipelineEvent {
+}
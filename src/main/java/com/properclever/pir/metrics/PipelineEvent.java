@@ -0,0 +1,47 @@
+package com.properclever.pir.metrics;
+
+import com.properclever.pir.util.RejectionReason;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Common fields of the Flight Recorder events emitted by the pipeline. Each event times one call:
+ * create it, {@code begin()}, do the work, then {@link #complete}. When recording is off the event classes
+ * are disabled and the JIT removes all of this, allocation included.
+ * <p>
+ * Stack traces are off by default, as they would cost more than most of the calls being timed.
+ */
+@Category({"Point In Rectangle"})
+@StackTrace(false)
+public abstract class PipelineEvent extends Event {
+    public static final String ORTHOGONAL = "orthogonal";
+    public static final String GENERAL = "general";
+
+    @Label("Vertex Count")
+    int vertexCount;
+
+    @Label("Solution Type")
+    String solutionType;
+
+    @Label("Outcome")
+    String outcome;
+
+    /** The outcome of a validation step: {@code ACCEPTED}, or the name of the rejection reason. */
+    public static String outcome(RejectionReason reason) {
+        return reason == null ? "ACCEPTED" : reason.name();
+    }
+
+    /** Ends the timing and commits the event with its details, if it is enabled and over its threshold. */
+    public final void complete(String solutionType, int vertexCount, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.solutionType = solutionType;
+            this.vertexCount = vertexCount;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.properclever.pir.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One checkPointInRectangle call; the outcome is {@code INSIDE} or {@code OUTSIDE}.
+ * Disabled even in recordings unless asked for, since a query takes nanoseconds and can run millions of
+ * times a second; enable it with {@code com.properclever.pir.Query#enabled=true}.
+ */
+@Name("com.properclever.pir.Query")
+@Label("Point Query")
+@Description("A single point-in-rectangle check")
+@Enabled(false)
+public final class QueryEvent extends PipelineEvent {
+}
@@ -0,0 +1,17 @@
+package com.properclever.pir.metrics;
+
+/** The pipeline stages that {@link Metrics} times. */
+public enum Stage {
+    /** PointStringParser, shape lists and single points. */
+    PARSE,
+    /** OrthogonalGeomTools validation, i.e. isValidRectangle. */
+    VALIDATE_ORTHOGONAL,
+    /** EdgeCollapser, i.e. collapseAndCheckRightAngles. */
+    COLLAPSE_EDGES,
+    /** GeneralGeomTools corner extraction from the collapsed points. */
+    EXTRACT_CORNERS,
+    /** A single checkPointInRectangle call. */
+    CONTAINS,
+    /** One containsAll call over a batch of points. */
+    CONTAINS_BATCH
+}
@@ -0,0 +1,12 @@
+package com.properclever.pir.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One orthogonal validation; the outcome is {@code ACCEPTED} or the rejection reason. */
+@Name("com.properclever.pir.Validate")
+@Label("Validate Rectangle")
+@Description("Validation of the points of a shape as an orthogonal rectangle")
+public final class ValidateEvent extends PipelineEvent {
+}
@@ -0,0 +1,225 @@
+package com.properclever.pir.server;
+
+import com.properclever.pir.cache.ShapeCache;
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+import com.properclever.pir.domain.ValidationResult;
+import com.properclever.pir.metrics.LatencyHistogram;
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.solution.BasicSolution;
+import com.properclever.pir.solution.GeneralSolution;
+import com.properclever.pir.util.PointStringParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An embedded HTTP front end for the solutions, on the JDK's built-in {@link HttpServer}, with every exchange
+ * handled on its own virtual thread. All endpoints take and return plain text:
+ * <ul>
+ *     <li>{@code POST /solve/<basic|general>}: the body is one batch-mode record, {@code <shape>; <point>},
+ *     and the response is {@code true} or {@code false}.</li>
+ *     <li>{@code POST /batch/<basic|general>}: the first line of the body is the shape and the second is the
+ *     points as a list, {@code [[x0,y0], ..., [xN,yN]]}. The shape is validated once and the whole list is
+ *     checked with the batch kernels; the response is one character per point, {@code 1} inside and
+ *     {@code 0} outside. An invalid shape gives all zeros, with the reason in {@code X-Shape-Rejected}.</li>
+ *     <li>{@code GET /stats}: request latency per endpoint and the shape cache counters, plus the
+ *     {@link Metrics} dump when metrics are enabled.</li>
+ * </ul>
+ * Validated shapes are kept in a {@link ShapeCache} per solution type, shared by both endpoints.
+ * Malformed input gets {@code 400} with {@code error: <message>}, bodies over the configured limit get
+ * {@code 413}, and any other failure gets {@code 500}. Responses always carry a Content-Length, so HTTP/1.1
+ * connections stay open between requests.
+ */
+public final class SolutionServer implements AutoCloseable {
+    public static final int DEFAULT_MAX_REQUEST_BYTES = 1 << 20;
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+    // larger limits are capped here, so that reading one byte past the limit still fits in an array
+    static final int MAX_REQUEST_BYTES = Integer.MAX_VALUE - 9;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int maxRequestBytes;
+    private final ShapeCache<OrthogonalRectangle> orthogonalShapes = ShapeCache.orthogonal(DEFAULT_CACHE_SIZE);
+    private final ShapeCache<GeneralRectangle> generalShapes = ShapeCache.general(DEFAULT_CACHE_SIZE);
+    private final LatencyHistogram solveStats = new LatencyHistogram();
+    private final LatencyHistogram batchStats = new LatencyHistogram();
+
+    private SolutionServer(HttpServer server, int maxRequestBytes) {
+        this.server = server;
+        this.maxRequestBytes = maxRequestBytes;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/solve/", exchange -> handle(exchange, solveStats, this::solve));
+        server.createContext("/batch/", exchange -> handle(exchange, batchStats, this::batch));
+        server.createContext("/stats", exchange -> handle(exchange, null, this::stats));
+    }
+
+    /**
+     * Starts a server on the given address; use port 0 to pick a free port. Limits above about 2 GiB (the
+     * largest array) are capped to it.
+     */
+    public static SolutionServer start(InetSocketAddress address, int maxRequestBytes) throws IOException {
+        if (maxRequestBytes < 1) {
+            throw new IllegalArgumentException("Request size limit must be positive, but got %d".formatted(maxRequestBytes));
+        }
+        SolutionServer solutionServer = new SolutionServer(HttpServer.create(address, 0), Math.min(maxRequestBytes, MAX_REQUEST_BYTES));
+        solutionServer.server.start();
+        return solutionServer;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public LatencyHistogram getSolveStats() {
+        return solveStats;
+    }
+
+    public LatencyHistogram getBatchStats() {
+        return batchStats;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange, String body);
+    }
+
+    private record Response(int status, String body) {
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, "error: " + (message == null ? "unknown error" : message));
+        }
+    }
+
+    private void handle(HttpExchange exchange, LatencyHistogram stats, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            String expectedMethod = stats == null ? "GET" : "POST";
+            Response response;
+            if (!exchange.getRequestMethod().equals(expectedMethod)) {
+                exchange.getResponseHeaders().set("Allow", expectedMethod);
+                response = Response.error(405, "expected " + expectedMethod);
+            } else {
+                String body = readBody(exchange);
+                if (body == null) {
+                    // don't read the rest of an oversized body just to keep the connection
+                    exchange.getResponseHeaders().set("Connection", "close");
+                    response = Response.error(413, "request body exceeds %d bytes".formatted(maxRequestBytes));
+                } else {
+                    try {
+                        response = handler.handle(exchange, body);
+                    } catch (IllegalArgumentException e) {
+                        response = Response.error(400, e.getMessage());
+                    } catch (RuntimeException e) {
+                        // a bug rather than bad input: answer properly instead of dropping the connection,
+                        // without echoing internals back to the client
+                        System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+                        response = Response.error(500, "internal error");
+                    }
+                }
+            }
+            // latency runs from accepting the exchange to having the response ready, and is recorded before
+            // sending so that a client that has its response also sees it counted
+            if (stats != null) {
+                stats.record(System.nanoTime() - start);
+            }
+            byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    // returns null if the body is over the limit; reading at most one byte past it covers
+    // chunked bodies, which have no Content-Length to check up front
+    private String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(maxRequestBytes + 1);
+            return bytes.length > maxRequestBytes ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private Response solve(HttpExchange exchange, String body) {
+        int separator = body.indexOf(';');
+        if (separator < 0) {
+            throw new IllegalArgumentException("expected '<shape>; <point>'");
+        }
+        String shape = body.substring(0, separator);
+        String point = body.substring(separator + 1);
+        String type = solutionType(exchange, "/solve/");
+        return switch (type) {
+            case "basic" -> Response.ok(new BasicSolution(shape, point, orthogonalShapes).solve().toString());
+            case "general" -> Response.ok(new GeneralSolution(shape, point, generalShapes).solve().toString());
+            default -> unknownType(type);
+        };
+    }
+
+    private Response batch(HttpExchange exchange, String body) {
+        int newline = body.indexOf('\n');
+        if (newline < 0) {
+            throw new IllegalArgumentException("expected the shape and the points on separate lines");
+        }
+        String shapeStr = body.substring(0, newline);
+        String type = solutionType(exchange, "/batch/");
+        ValidationResult<? extends Shape> shape = switch (type) {
+            case "basic" -> orthogonalShapes.get(shapeStr);
+            case "general" -> generalShapes.get(shapeStr);
+            default -> null;
+        };
+        if (shape == null) {
+            return unknownType(type);
+        }
+        PointBuffer points = PointStringParser.parsePointBuffer(body.substring(newline + 1));
+        BitSet inside = new BitSet(points.size());
+        switch (shape) {
+            case ValidationResult.Valid<? extends Shape>(Shape valid) -> valid.containsAll(points, inside);
+            case ValidationResult.Rejected<? extends Shape>(var reason) ->
+                    exchange.getResponseHeaders().set("X-Shape-Rejected", reason.name());
+        }
+        StringBuilder result = new StringBuilder(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            result.append(inside.get(i) ? '1' : '0');
+        }
+        return Response.ok(result.toString());
+    }
+
+    private static String solutionType(HttpExchange exchange, String prefix) {
+        return exchange.getRequestURI().getPath().substring(prefix.length());
+    }
+
+    private static Response unknownType(String type) {
+        return Response.error(404, "unknown solution type '%s', expected basic or general".formatted(type));
+    }
+
+    private Response stats(HttpExchange exchange, String body) {
+        String stats = String.join("\n",
+                "solve: " + solveStats,
+                "batch: " + batchStats,
+                "basic: " + orthogonalShapes.stats(),
+                "general: " + generalShapes.stats(),
+                "");
+        // the per-stage breakdown too, if it is being collected
+        return Response.ok(Metrics.isEnabled() ? stats + Metrics.dump() : stats);
+    }
+}
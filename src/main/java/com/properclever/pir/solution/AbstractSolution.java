@@ -1,22 +1,32 @@
 package com.properclever.pir.solution;
 
-import com.properclever.pir.util.PointStringParser;
+import com.properclever.pir.cache.ShapeCache;
 import com.properclever.pir.domain.Point;
-import java.util.List;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+import com.properclever.pir.domain.ValidationResult;
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.util.PointStringParser;
+import java.util.function.Function;
 
 /**
  * This class handles the incidental task of converting input strings into the appropriate
- * domain objects (i.e. a list of Points for the shape and a single Point for the test).
+ * domain objects (i.e. a PointBuffer for the shape and a single Point for the test).
  * The string parsing itself is not central to the problem's logic, it's just a means of getting
  * the data into our model. By performing this work in the base class, we keep the subclasses
  * focused solely on the core logic of determining whether the point lies inside the rectangle.
  * <p>
  * Subclasses must implement doSolve() to provide specific solution logic.
+ * <p>
+ * When constructed with a {@link ShapeCache}, the shape string is looked up in the cache instead, and only
+ * parsed and validated on a miss; {@link #validatedShape} hides the difference from subclasses.
  */
 public abstract class AbstractSolution implements Solvable<Boolean> {
 
-    protected final List<Point> inputPoints;
+    // the parsed shape, or null when the shape came from a cache
+    private final PointBuffer shapePoints;
     protected final Point testPoint;
+    private final ValidationResult<? extends Shape> cachedShape;
 
     /**
      * Constructs an instance by parsing the provided input strings.
@@ -28,8 +38,34 @@ public abstract class AbstractSolution implements Solvable<Boolean> {
      * @throws IllegalArgumentException if the input strings are invalid.
      */
     public AbstractSolution(final String shapeStr, final String pointStr) {
-        this.inputPoints = PointStringParser.parsePointArray(shapeStr);
-        this.testPoint = PointStringParser.parsePoint(pointStr);
+        try (Metrics.Attribution _ = Metrics.attribute(getClass())) {
+            this.shapePoints = PointStringParser.parsePointBuffer(shapeStr);
+            this.testPoint = PointStringParser.parsePoint(pointStr);
+        }
+        this.cachedShape = null;
+    }
+
+    /**
+     * Constructs an instance whose shape is fetched from {@code cache}, which parses and validates it on a miss.
+     *
+     * @throws IllegalArgumentException if the input strings are invalid.
+     */
+    protected AbstractSolution(final String shapeStr, final String pointStr, final ShapeCache<? extends Shape> cache) {
+        try (Metrics.Attribution _ = Metrics.attribute(getClass())) {
+            this.cachedShape = cache.get(shapeStr);
+            this.testPoint = PointStringParser.parsePoint(pointStr);
+        }
+        this.shapePoints = null;
+    }
+
+    /**
+     * Returns the validated shape: the cached result if this instance was built with a cache, otherwise
+     * {@code validator} applied to the parsed input points.
+     * Subclasses pass the validator matching the cache type they accept in their constructor.
+     */
+    @SuppressWarnings("unchecked")
+    protected <S extends Shape> ValidationResult<S> validatedShape(Function<PointBuffer, ValidationResult<S>> validator) {
+        return cachedShape != null ? (ValidationResult<S>) cachedShape : validator.apply(shapePoints);
     }
 
     /**
@@ -41,7 +77,13 @@ public abstract class AbstractSolution implements Solvable<Boolean> {
      */
     @Override
     public final Boolean solve() {
-        return doSolve();
+        long start = Metrics.start();
+        Boolean inside;
+        try (Metrics.Attribution _ = Metrics.attribute(getClass())) {
+            inside = doSolve();
+        }
+        Metrics.stopSolve(getClass(), start, inside);
+        return inside;
     }
 
     /**
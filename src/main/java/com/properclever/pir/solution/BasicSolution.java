@@ -1,7 +1,9 @@
 package com.properclever.pir.solution;
 
+import com.properclever.pir.cache.ShapeCache;
 import com.properclever.pir.domain.OrthogonalRectangle;
-import com.properclever.pir.domain.Shape;
+import com.properclever.pir.domain.Shapes;
+import com.properclever.pir.domain.ValidationResult;
 
 
 public class BasicSolution extends AbstractSolution {
@@ -10,18 +12,19 @@ public class BasicSolution extends AbstractSolution {
         super(shapeStr, pointStr);
     }
 
+    public BasicSolution(String shapeStr, String pointStr, ShapeCache<OrthogonalRectangle> cache) {
+        super(shapeStr, pointStr, cache);
+    }
+
     @Override
     protected Boolean doSolve() {
-        Shape shape;
-        try {
-            // validity of OrthogonalRectangle is determined in its constructor
-            shape = new OrthogonalRectangle(inputPoints);
-        } catch (IllegalArgumentException _) {
-            // inputPoints were not a valid OrthogonalRectangle
-            return false;
-        }
-        // we have a valid OrthogonalRectangle!
-        // check if the test point (parsed in the base class) lies strictly inside the rectangle.
-        return shape.contains(testPoint);
+        // validity of the OrthogonalRectangle is decided by the factory (or found in the shape cache), as a result rather than an exception
+        return switch (validatedShape(Shapes::tryOrthogonal)) {
+            // we have a valid OrthogonalRectangle!
+            // check if the test point (parsed in the base class) lies strictly inside the rectangle.
+            case ValidationResult.Valid<OrthogonalRectangle>(OrthogonalRectangle shape) -> shape.contains(testPoint);
+            // the input points were not a valid OrthogonalRectangle
+            case ValidationResult.Rejected<OrthogonalRectangle> _ -> false;
+        };
     }
 }
\ No newline at end of file
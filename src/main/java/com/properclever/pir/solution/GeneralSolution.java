@@ -1,7 +1,9 @@
 package com.properclever.pir.solution;
 
+import com.properclever.pir.cache.ShapeCache;
 import com.properclever.pir.domain.GeneralRectangle;
-import com.properclever.pir.domain.Shape;
+import com.properclever.pir.domain.Shapes;
+import com.properclever.pir.domain.ValidationResult;
 
 
 public class GeneralSolution extends AbstractSolution {
@@ -10,18 +12,19 @@ public class GeneralSolution extends AbstractSolution {
         super(shapeStr, pointStr);
     }
 
+    public GeneralSolution(String shapeStr, String pointStr, ShapeCache<GeneralRectangle> cache) {
+        super(shapeStr, pointStr, cache);
+    }
+
     @Override
     protected Boolean doSolve() {
-        Shape shape;
-        try {
-            // validity of GeneralRectangle is determined in its constructor
-            shape = new GeneralRectangle(inputPoints);
-        } catch (IllegalArgumentException _) {
-            // inputPoints were not a valid GeneralRectangle
-            return false;
-        }
-        // we have a valid GeneralRectangle!
-        // check if the test point (parsed in the base class) lies strictly inside the rectangle.
-        return shape.contains(testPoint);
+        // validity of the GeneralRectangle is decided by the factory (or found in the shape cache), as a result rather than an exception
+        return switch (validatedShape(Shapes::tryGeneral)) {
+            // we have a valid GeneralRectangle!
+            // check if the test point (parsed in the base class) lies strictly inside the rectangle.
+            case ValidationResult.Valid<GeneralRectangle>(GeneralRectangle shape) -> shape.contains(testPoint);
+            // the input points were not a valid GeneralRectangle
+            case ValidationResult.Rejected<GeneralRectangle> _ -> false;
+        };
     }
 }
\ No newline at end of file
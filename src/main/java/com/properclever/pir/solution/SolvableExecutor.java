@@ -0,0 +1,140 @@
+package com.properclever.pir.solution;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs {@link Solvable} jobs concurrently, either one virtual thread per job or on a fork-join pool of a
+ * given parallelism, and hands back the results as {@link CompletableFuture}s or as a stream in input order.
+ * <p>
+ * At most {@code maxInFlight} jobs are submitted but unfinished at any time: {@link #submit} blocks the caller
+ * until a slot frees up, so a fast producer cannot queue unbounded work (and memory) ahead of the workers.
+ * Virtual threads suit jobs that may block; for the CPU-bound solutions either mode spreads the work over all
+ * cores, as the virtual threads are scheduled on one carrier thread per core.
+ */
+public final class SolvableExecutor implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    private SolvableExecutor(ExecutorService executor, int maxInFlight) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** One virtual thread per job, with at most {@code maxInFlight} jobs unfinished. */
+    public static SolvableExecutor virtualThreads(int maxInFlight) {
+        requirePositive(1, maxInFlight);
+        return new SolvableExecutor(Executors.newVirtualThreadPerTaskExecutor(), maxInFlight);
+    }
+
+    /** A fork-join pool running {@code parallelism} jobs at once, with at most {@code maxInFlight} unfinished. */
+    public static SolvableExecutor forkJoin(int parallelism, int maxInFlight) {
+        requirePositive(parallelism, maxInFlight);
+        return new SolvableExecutor(new ForkJoinPool(parallelism), maxInFlight);
+    }
+
+    private static void requirePositive(int parallelism, int maxInFlight) {
+        if (parallelism < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Parallelism and in-flight limit must be positive");
+        }
+    }
+
+    /**
+     * Schedules the job, first waiting for an in-flight slot if all are taken. The future completes with the
+     * job's result, or exceptionally with whatever it threw. If the caller is interrupted while waiting the job
+     * is not run and the future fails with the {@link InterruptedException}.
+     */
+    public <T> CompletableFuture<T> submit(Solvable<T> job) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(job, result));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+        return result;
+    }
+
+    private <T> void run(Solvable<T> job, CompletableFuture<T> result) {
+        T value;
+        try {
+            value = job.solve();
+        } catch (Throwable t) {
+            permits.release();
+            result.completeExceptionally(t);
+            return;
+        }
+        // free the slot before completing, so a caller woken by the result can submit straight away
+        permits.release();
+        result.complete(value);
+    }
+
+    /**
+     * Solves the jobs concurrently and returns their results lazily, in the order of {@code jobs}.
+     * Jobs are pulled from the source only as results are consumed, so at most {@code maxInFlight} are
+     * pending however long the source is. A job that threw surfaces as a
+     * {@link java.util.concurrent.CompletionException} when its result is reached.
+     */
+    public <T> Stream<T> solveOrdered(Stream<? extends Solvable<T>> jobs) {
+        Iterator<? extends Solvable<T>> source = jobs.iterator();
+        Iterator<T> results = new Iterator<>() {
+            private final ArrayDeque<CompletableFuture<T>> window = new ArrayDeque<>(maxInFlight);
+
+            @Override
+            public boolean hasNext() {
+                fill();
+                return !window.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return window.removeFirst().join();
+            }
+
+            private void fill() {
+                while (window.size() < maxInFlight && source.hasNext()) {
+                    window.addLast(submit(source.next()));
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED), false)
+                .onClose(jobs::close);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /** Number of jobs submitted but not yet finished. */
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /** Waits for the submitted jobs to finish, then releases the threads. */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
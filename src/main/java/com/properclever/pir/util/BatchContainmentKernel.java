@@ -0,0 +1,51 @@
+package com.properclever.pir.util;
+
+import java.util.BitSet;
+
+/**
+ * Tests a whole batch of points against one validated rectangle, writing one bit per point.
+ * Implementations set bit i of {@code results} if (xs[i], ys[i]) is strictly inside and clear it otherwise,
+ * for the first {@code length} points; the columns may be longer (e.g. a {@code PointBuffer}'s spare capacity).
+ * Obtain the best available implementation from {@link BatchKernels#get()}.
+ * <p>
+ * The {@code float[]} overloads take single-precision batches (see
+ * {@link com.properclever.pir.domain.FloatPointBatch}) and give exactly the answers of the {@code double[]} ones
+ * for the widened points, under this boundary rule:
+ * <ul>
+ * <li>Orthogonal: the bounds are rounded outwards to floats once, and the points compared in float. No float
+ * lies strictly between a bound and its rounding, so the comparisons are exact and nothing is re-checked.</li>
+ * <li>General: each edge test is evaluated in float as a linear function of the point, together with a bound on
+ * its rounding error (a few float epsilons of the terms' magnitudes). A point is decided in float only when
+ * every test clears its bound; a point within that distance of an edge is re-checked in double with
+ * {@link GeneralRectangleKernel#contains}.</li>
+ * </ul>
+ */
+public interface BatchContainmentKernel {
+    void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                               double[] xs, double[] ys, int length, BitSet results);
+
+    void containsAllGeneral(GeneralRectangleKernel frame, double[] xs, double[] ys, int length, BitSet results);
+
+    default void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                                       double[] xs, double[] ys, BitSet results) {
+        containsAllOrthogonal(minX, minY, maxX, maxY, xs, ys, xs.length, results);
+    }
+
+    default void containsAllGeneral(GeneralRectangleKernel frame, double[] xs, double[] ys, BitSet results) {
+        containsAllGeneral(frame, xs, ys, xs.length, results);
+    }
+
+    void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                               float[] xs, float[] ys, int length, BitSet results);
+
+    void containsAllGeneral(GeneralRectangleKernel frame, float[] xs, float[] ys, int length, BitSet results);
+
+    default void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                                       float[] xs, float[] ys, BitSet results) {
+        containsAllOrthogonal(minX, minY, maxX, maxY, xs, ys, xs.length, results);
+    }
+
+    default void containsAllGeneral(GeneralRectangleKernel frame, float[] xs, float[] ys, BitSet results) {
+        containsAllGeneral(frame, xs, ys, xs.length, results);
+    }
+}
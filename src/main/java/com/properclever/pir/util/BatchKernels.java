@@ -0,0 +1,58 @@
+package com.properclever.pir.util;
+
+/**
+ * Chooses the batch containment kernel once, at runtime.
+ * <p>
+ * The SIMD kernel is used when the {@code jdk.incubator.vector} module is present in the running JVM
+ * (start it with {@code --add-modules jdk.incubator.vector}); otherwise, or if the system property
+ * {@value #KERNEL_PROPERTY} is set to {@code scalar}, the plain loop is used. Both give identical results.
+ */
+public final class BatchKernels {
+    public static final String KERNEL_PROPERTY = "pir.kernel";
+
+    private static final BatchContainmentKernel SCALAR = new ScalarBatchKernel();
+    private static final BatchContainmentKernel SELECTED = select();
+
+    private BatchKernels() {
+    }
+
+    /** The kernel chosen for this JVM. */
+    public static BatchContainmentKernel get() {
+        return SELECTED;
+    }
+
+    /** The portable fallback, always available. */
+    public static BatchContainmentKernel scalar() {
+        return SCALAR;
+    }
+
+    public static boolean isVectorized() {
+        return SELECTED != SCALAR;
+    }
+
+    public static void requireSameLength(double[] xs, double[] ys) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Coordinate arrays differ in length: %d x, %d y".formatted(xs.length, ys.length));
+        }
+    }
+
+    public static void requireLength(double[] xs, double[] ys, int length) {
+        if (length < 0 || length > xs.length || length > ys.length) {
+            throw new IllegalArgumentException("Cannot test %d points in columns of %d x and %d y".formatted(length, xs.length, ys.length));
+        }
+    }
+
+    private static BatchContainmentKernel select() {
+        if ("scalar".equalsIgnoreCase(System.getProperty(KERNEL_PROPERTY))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR;
+        }
+        try {
+            // loaded reflectively so this class never links against the incubator module when it's absent
+            return (BatchContainmentKernel) Class.forName("com.properclever.pir.util.VectorBatchKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+}
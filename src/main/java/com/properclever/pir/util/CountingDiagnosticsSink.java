@@ -0,0 +1,47 @@
+package com.properclever.pir.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates validation outcomes into counters, one per rejection reason plus one for accepted shapes.
+ * LongAdder keeps concurrent validations from contending on a single counter.
+ */
+public class CountingDiagnosticsSink implements DiagnosticsSink {
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder[] rejected = new LongAdder[RejectionReason.values().length];
+
+    public CountingDiagnosticsSink() {
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void rejected(RejectionReason reason) {
+        rejected[reason.ordinal()].increment();
+    }
+
+    @Override
+    public void accepted() {
+        accepted.increment();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected(RejectionReason reason) {
+        return rejected[reason.ordinal()].sum();
+    }
+
+    /** Rejection counts by reason, including zeros. */
+    public Map<RejectionReason, Long> getRejectedCounts() {
+        Map<RejectionReason, Long> counts = new EnumMap<>(RejectionReason.class);
+        for (RejectionReason reason : RejectionReason.values()) {
+            counts.put(reason, getRejected(reason));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,24 @@
+package com.properclever.pir.util;
+
+/**
+ * Holds the process-wide {@link DiagnosticsSink} that the validators report to.
+ * It is a no-op until something installs a sink, e.g. a {@link CountingDiagnosticsSink}.
+ */
+public final class Diagnostics {
+    private static volatile DiagnosticsSink sink = DiagnosticsSink.NONE;
+
+    private Diagnostics() {
+    }
+
+    public static DiagnosticsSink sink() {
+        return sink;
+    }
+
+    /** Installs a sink (or {@link DiagnosticsSink#NONE} to switch reporting off again). */
+    public static void setSink(DiagnosticsSink newSink) {
+        if (newSink == null) {
+            throw new IllegalArgumentException("Sink cannot be null; use DiagnosticsSink.NONE");
+        }
+        sink = newSink;
+    }
+}
@@ -0,0 +1,20 @@
+package com.properclever.pir.util;
+
+/**
+ * Receives the outcome of every shape validation. The validators used to print these to stdout; now they
+ * report an enum reason code here instead, and the sink decides what (if anything) to do with it.
+ * Implementations must be thread-safe and cheap: they're called on the validation hot path.
+ *
+ * @see Diagnostics#setSink(DiagnosticsSink)
+ */
+@FunctionalInterface
+public interface DiagnosticsSink {
+    /** Does nothing; the default sink. */
+    DiagnosticsSink NONE = reason -> {
+    };
+
+    void rejected(RejectionReason reason);
+
+    default void accepted() {
+    }
+}
@@ -1,6 +1,11 @@
 package com.properclever.pir.util;
 
 import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.metrics.CollapseEvent;
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.metrics.PipelineEvent;
+import com.properclever.pir.metrics.Stage;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -8,7 +13,21 @@ import java.util.Optional;
 
 public class EdgeCollapser {
 
+    /**
+     * Relative tolerance: a turn is straight or square if the sine or cosine of its angle is within this of
+     * zero, and a segment has zero length if it is this small next to its endpoints' coordinates. Being relative,
+     * the verdicts don't change when a shape is scaled or moved far from the origin (e.g. projected metres).
+     * <p>
+     * Not used for integral shapes (see {@link PointBuffer#isIntegral}): their turns are classified exactly in
+     * {@code long} arithmetic, so a grid shape is a rectangle exactly when its turns are exactly square.
+     */
     public static final double TOLERANCE = 1e-9;
+    /**
+     * Enough collapsed points for any rectangle (5 if the loop closes at a corner, 6 if mid-edge) plus one, so a
+     * shape with too many corners still shows up as too many.
+     */
+    public static final int RECTANGLE_LIMIT = 7;
+
     /**
      * Attempt to collapse collinear segments from the given list of points,
      * ensuring no backtracking and only right angles (or continued collinearity).
@@ -17,112 +36,184 @@ public class EdgeCollapser {
      * or Optional.empty() if a backtrack or non-90-degree turn is encountered.
      */
     public static Optional<List<Point>> collapseAndCheckRightAngles(List<Point> points) {
-        if (points == null || points.isEmpty()) {
-            return Optional.empty();
-        }
-
-        // Ensure the shape is "closed" by appending the first point if the last is different
-        List<Point> adjusted;
-        if (!points.getFirst().equals(points.getLast())) {
-            adjusted = new ArrayList<>(points);
-            adjusted.add(points.getFirst());
-        } else {
-            adjusted = points;
-        }
-        EdgeAccumulator acc = new EdgeAccumulator();
+        List<Point> collapsed = new ArrayList<>();
+        return collapse(points, collapsed) == null ? Optional.of(collapsed) : Optional.empty();
+    }
 
-        try {
-   
-            adjusted.forEach(acc::accept); // accept() might throw InvalidShapeException
+    /**
+     * Same as {@link #collapseAndCheckRightAngles(List)}, but reports why the points were rejected.
+     * The collapsed points are appended to {@code collapsed}; its contents are unspecified on rejection.
+     *
+     * @return null if the points collapsed cleanly, otherwise the reason they were rejected.
+     */
+    public static RejectionReason collapse(List<Point> points, List<Point> collapsed) {
+        PointBuffer buffer = PointBuffer.allocate(8);
+        RejectionReason reason = collapse(points == null ? null : PointBuffer.of(points), buffer);
+        collapsed.addAll(buffer.toList());
+        return reason;
+    }
 
-            // If we never threw, shape is valid
-            return Optional.of(acc.finish());
-        } catch (InvalidShapeException e) {
-            System.out.println(e.getMessage());
-            return Optional.empty();
-        }
+    /** Same as {@link #collapse(List, List)}, without boxing a Point per vertex. */
+    public static RejectionReason collapse(PointBuffer points, PointBuffer collapsed) {
+        return collapse(points, collapsed, Integer.MAX_VALUE);
     }
 
     /**
-     * A custom exception used to short-circuit the stream when invalid geometry is found.
+     * Same as {@link #collapse(PointBuffer, PointBuffer)}, but keeps at most {@code limit} collapsed points: once
+     * {@code collapsed} is full, each further corner overwrites the last one. The turns are all still checked,
+     * so the verdict is unchanged, but a caller that only wants rectangles (see {@link #RECTANGLE_LIMIT}) needs
+     * a fixed-size buffer however long the input.
      */
-    private static class InvalidShapeException extends RuntimeException {
-        InvalidShapeException(String message) {
-            super(message);
+    public static RejectionReason collapse(PointBuffer points, PointBuffer collapsed, int limit) {
+        if (limit < 2) {
+            throw new IllegalArgumentException("Limit must be at least 2, but got %d".formatted(limit));
+        }
+        if (points == null || points.isEmpty()) {
+            Diagnostics.sink().rejected(RejectionReason.NULL_OR_EMPTY);
+            return RejectionReason.NULL_OR_EMPTY;
         }
+
+        long start = Metrics.start();
+        CollapseEvent event = new CollapseEvent();
+        event.begin();
+        // Ensure the shape is "closed" by re-visiting the first point if the last is different
+        EdgeAccumulator acc = new EdgeAccumulator(collapsed, limit, points.isIntegral());
+        RejectionReason reason = null;
+        for (int i = 0; i < points.size() && reason == null; i++) {
+            reason = acc.accept(points.x(i), points.y(i));
+        }
+        if (reason == null && !points.samePoint(0, points.size() - 1)) {
+            reason = acc.accept(points.x(0), points.y(0));
+        }
+        Metrics.stop(Stage.COLLAPSE_EDGES, start);
+        event.complete(PipelineEvent.GENERAL, points.size(), PipelineEvent.outcome(reason));
+        if (reason != null) {
+            Diagnostics.sink().rejected(reason);
+        }
+        return reason;
     }
 
     private static class EdgeAccumulator {
-        private final List<Point> collapsed = new ArrayList<>();
+        private final PointBuffer collapsed;
+        private final int limit;
+        // all coordinates are small integers, so turns can be classified exactly
+        private final boolean exact;
 
         // We'll keep track of the "current direction" as a 2D vector
         // from the most recent corner to the current point.
         private double directionX = 0.0;
         private double directionY = 0.0;
 
+        EdgeAccumulator(PointBuffer collapsed, int limit, boolean exact) {
+            this.collapsed = collapsed;
+            this.limit = limit;
+            this.exact = exact;
+        }
+
         // We need at least one point to establish direction.
         // The second point will finalize direction, and so on.
+        // Returns null while the shape is still valid, or the reason to stop.
 
-        void accept(Point p) {
+        RejectionReason accept(double x, double y) {
             if (collapsed.isEmpty()) {
                 // First point
-                collapsed.add(p);
+                collapsed.add(x, y);
             } else if (collapsed.size() == 1) {
                 // Second point => initialize direction
-                Point prev = collapsed.getFirst();
-                directionX = p.x() - prev.x();
-                directionY = p.y() - prev.y();
-                if (isZeroLength(directionX, directionY)) {
+                directionX = x - collapsed.x(0);
+                directionY = y - collapsed.y(0);
+                if (exact ? directionX == 0 && directionY == 0 : isZeroLength(directionX, directionY, x, y)) {
                     // Two identical points => no direction
-                    throw new InvalidShapeException("Zero-length segment encountered.");
+                    return RejectionReason.ZERO_LENGTH_SEGMENT;
                 }
-                collapsed.add(p);
+                collapsed.add(x, y);
             } else {
                 // We have an established direction and at least 2 points
-                Point lastCorner = collapsed.getLast();
+                int lastCorner = collapsed.size() - 1;
 
-                double newX = p.x() - lastCorner.x();
-                double newY = p.y() - lastCorner.y();
+                double newX = x - collapsed.x(lastCorner);
+                double newY = y - collapsed.y(lastCorner);
+                if (exact) {
+                    return exactTurn(lastCorner, x, y, newX, newY);
+                }
+                if (isZeroLength(newX, newY, x, y)) {
+                    return RejectionReason.ZERO_LENGTH_SEGMENT;
+                }
+                // |direction| * |new|, so the cross and dot products below compare as sine and cosine
+                double tolerance = TOLERANCE * Math.sqrt((directionX * directionX + directionY * directionY) * (newX * newX + newY * newY));
 
                 // Check geometry between (directionX, directionX) and (newX, newY)
-                if (areCollinearAndSameDirection(directionX, directionY, newX, newY)) {
+                if (areCollinearAndSameDirection(directionX, directionY, newX, newY, tolerance)) {
                     // in same direction so just swap in the new point to extend the line
                     // don't need to update direction vector
-                    collapsed.removeLast();
-                    collapsed.add(p);
+                    collapsed.set(lastCorner, x, y);
                 }
                 else {
                     // not collinear ... either 90 degrees or bad angle
                     double dot = directionX * newX + directionY * newY;
                     double cross = directionX * newY - directionY * newX;
 
-                    if (Math.abs(cross) < TOLERANCE) {
+                    if (Math.abs(cross) <= tolerance) {
                         // cross == 0 ... collinear (forward or backtrack)
                         if (dot < 0) {
-                            throw new InvalidShapeException("Backtracking detected.");
+                            return RejectionReason.BACKTRACK;
                         } else {
                             // dot > 0 would have been caught in areCollinearAndSameDirection
-                            // dot == 0 shouldn't happen if lengths are not zero
-                            throw new InvalidShapeException("Unexpected!");
+                            // dot == 0 means the new segment has (near) zero length
+                            return RejectionReason.ZERO_LENGTH_SEGMENT;
                         }
                     } else {
                         // cross != 0 ... there's a non-zero angle. Check if it's 90 deg: dot = 0
-                        if (Math.abs(dot) < TOLERANCE) {
+                        if (Math.abs(dot) <= tolerance) {
                             // right angle, update direction to the new segment
-                            collapsed.add(p);
-                            directionX = newX;
-                            directionY = newY;
+                            turn(x, y, newX, newY);
                         } else {
                             // Not 90 deg, invalid
-                            throw new InvalidShapeException("Angle not 90 degrees.");
+                            return RejectionReason.NOT_RIGHT_ANGLE;
                         }
                     }
                 }
             }
+            return null;
         }
 
-        List<Point> finish() {
-            return collapsed;
+        /**
+         * The same decisions as the tolerant path in {@link #accept}, made exactly: the differences of integers
+         * below {@link Orientation#MAX_EXACT_INTEGER} are below 2^31, so the cross and dot products fit in a long.
+         */
+        private RejectionReason exactTurn(int lastCorner, double x, double y, double newX, double newY) {
+            long dx1 = (long) directionX;
+            long dy1 = (long) directionY;
+            long dx2 = (long) newX;
+            long dy2 = (long) newY;
+            if (dx2 == 0 && dy2 == 0) {
+                return RejectionReason.ZERO_LENGTH_SEGMENT;
+            }
+            long cross = dx1 * dy2 - dy1 * dx2;
+            long dot = dx1 * dx2 + dy1 * dy2;
+            if (cross == 0) {
+                // both segments have length, so the dot product is not zero either
+                if (dot < 0) {
+                    return RejectionReason.BACKTRACK;
+                }
+                collapsed.set(lastCorner, x, y);
+            } else if (dot == 0) {
+                turn(x, y, newX, newY);
+            } else {
+                return RejectionReason.NOT_RIGHT_ANGLE;
+            }
+            return null;
+        }
+
+        // records a right-angle corner at (x, y) and takes the new segment's direction
+        private void turn(double x, double y, double newX, double newY) {
+            if (collapsed.size() < limit) {
+                collapsed.add(x, y);
+            } else {
+                collapsed.set(collapsed.size() - 1, x, y);
+            }
+            directionX = newX;
+            directionY = newY;
         }
 
         /**
@@ -130,19 +221,20 @@ public class EdgeCollapser {
          * the same direction (dot > 0, cross ~ 0).
          */
         private boolean areCollinearAndSameDirection(double dx1, double dy1,
-                                                     double dx2, double dy2) {
+                                                     double dx2, double dy2, double tolerance) {
             double cross = dx1 * dy2 - dy1 * dx2;
-            if (Math.abs(cross) > TOLERANCE) {
+            if (Math.abs(cross) > tolerance) {
                 return false; // not collinear
             }
             // dot > 0: same direction, dot < 0: reversed
             double dot = dx1 * dx2 + dy1 * dy2;
-            return dot > TOLERANCE;
+            return dot > tolerance;
         }
 
-        /** Checks if a direction vector is effectively zero length. */
-        private boolean isZeroLength(double dx, double dy) {
-            return Math.abs(dx) < TOLERANCE && Math.abs(dy) < TOLERANCE;
+        /** Checks if a direction vector ending at (x, y) is effectively zero length, relative to its coordinates. */
+        private boolean isZeroLength(double dx, double dy, double x, double y) {
+            double scale = Math.max(Math.max(Math.abs(x), Math.abs(y)), Math.max(Math.abs(x - dx), Math.abs(y - dy)));
+            return Math.abs(dx) <= TOLERANCE * scale && Math.abs(dy) <= TOLERANCE * scale;
         }
     }
 }
\ No newline at end of file
@@ -1,76 +1,78 @@
 package com.properclever.pir.util;
 
+import com.properclever.pir.domain.GeneralRectangle;
 import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
 import com.properclever.pir.domain.Shape;
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.metrics.PipelineEvent;
+import com.properclever.pir.metrics.QueryEvent;
+import com.properclever.pir.metrics.Stage;
 
 import java.util.List;
 
 public class GeneralGeomTools implements PointInRectangleCheckable {
 
-    private static boolean isStrictlyLeft(Point a, Point b, Point p) {
-        // cross product of B and P from A: (b-a) x (p-a)
-        double cross = (b.x() - a.x()) * (p.y() - a.y()) - (b.y() - a.y()) * (p.x() - a.x());
-        // if cross product is 0, the points are collinear
-        // if < 0, it's on the wrong side of the line
-        return cross > 0;
+    public List<Point> extractFourCorners(List<Point> rectPoints) {
+        List<Point> corners = findFourCorners(rectPoints);
+        if (corners == null) {
+            throw new IllegalArgumentException("Expected a closed shape of 5 or 6 points, but got %d".formatted(rectPoints.size()));
+        }
+        return corners;
     }
 
-    private static boolean isStrictlyRight(Point a, Point b, Point p) {
-        // swap handedness, flip the vectors around (A swap B)
-        return isStrictlyLeft(b, a, p);
+    /**
+     * Picks the four corners out of a collapsed, closed rectangle, or returns null (after reporting
+     * {@link RejectionReason#WRONG_VERTEX_COUNT}) if the points are not one.
+     */
+    public List<Point> findFourCorners(List<Point> rectPoints) {
+        int first = findFirstCorner(PointBuffer.of(rectPoints));
+        return first < 0 ? null : List.copyOf(rectPoints.subList(first, first + 4));
     }
 
-    public List<Point> extractFourCorners(List<Point> rectPoints) {
-        // We expect a closed rectangle!
-        // It will be 5 points if closed at a corner, or 6 if closed somewhere on an edge
-        if (rectPoints.size() < 5 || rectPoints.size() > 6) {
-            throw new IllegalArgumentException("Expected final shape size of 5 or 6, but got %d".formatted(rectPoints.size()));
+    /**
+     * Same as {@link #findFourCorners(List)}, but returns the index of the first of the four consecutive
+     * corners in {@code rectPoints}, or -1 if the points are not a collapsed, closed rectangle.
+     */
+    public int findFirstCorner(PointBuffer rectPoints) {
+        long start = Metrics.start();
+        int first = firstCornerOf(rectPoints);
+        Metrics.stop(Stage.EXTRACT_CORNERS, start);
+        if (first < 0) {
+            Diagnostics.sink().rejected(RejectionReason.WRONG_VERTEX_COUNT);
+        } else {
+            Diagnostics.sink().accepted();
         }
+        return first;
+    }
 
-        // Basic check that it's closed: first == last
-        Point first = rectPoints.getFirst();
-        Point last = rectPoints.getLast();
-        if (!first.equals(last)) {
-            throw new IllegalArgumentException("Shape is not closed (first != last).");
+    private static int firstCornerOf(PointBuffer rectPoints) {
+        // We expect a closed rectangle!
+        // It will be 5 points if closed at a corner, or 6 if closed somewhere on an edge;
+        // the closing point must match the start (first == last)
+        if (rectPoints.size() < 5 || rectPoints.size() > 6 || !rectPoints.samePoint(0, rectPoints.size() - 1)) {
+            return -1;
         }
 
         // if we have 5 points: [C0, C1, C2, C3, C0]
         //                       --  --  --  --
         // corners are indices 0..3
-        if (rectPoints.size() == 5) {
-            return List.of(rectPoints.get(0), rectPoints.get(1), rectPoints.get(2), rectPoints.get(3));
-        }
-
         // or if we have 6 points: [S, C1, C2, C3, C4, S]
         //                             --  --  --  --
         // corners are indices 1..4
-        return List.of(rectPoints.get(1), rectPoints.get(2), rectPoints.get(3), rectPoints.get(4));
+        return rectPoints.size() == 5 ? 0 : 1;
     }
 
     @Override
-    public boolean checkPointInRectangle(Shape rectangle, Point testPoint) {
-        // we will use our vector friend, the cross product, on each line of the rectangle
-        // and the test point.
-
-        List<Point> vertices = rectangle.getCoordinates();
-        Point v0 = vertices.get(0);
-        Point v1 = vertices.get(1);
-        Point v2 = vertices.get(2);
-        Point v3 = vertices.get(3);
-
-        // Check that the point is on the same side of each edge using cross product
-        // it depends whether the points are going clockwise or anticlockwise
-        // as to whether we want the test point always on the left or the right.
-        return (
-                isStrictlyLeft(v0, v1, testPoint)
-                        && isStrictlyLeft(v1, v2, testPoint)
-                        && isStrictlyLeft(v2, v3, testPoint)
-                        && isStrictlyLeft(v3, v0, testPoint)
-        ) || (
-                isStrictlyRight(v0, v1, testPoint)
-                        && isStrictlyRight(v1, v2, testPoint)
-                        && isStrictlyRight(v2, v3, testPoint)
-                        && isStrictlyRight(v3, v0, testPoint)
-        );
+    public boolean checkPointInRectangle(Shape rectangle, double x, double y) {
+        // the rectangle precompiles its corners in counterclockwise order at construction,
+        // so each query is four filtered (and, near an edge, exact) orientation tests
+        long start = Metrics.start();
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        boolean inside = ((GeneralRectangle) rectangle).getKernel().contains(x, y);
+        Metrics.stop(Stage.CONTAINS, start);
+        event.complete(PipelineEvent.GENERAL, 4, inside ? "INSIDE" : "OUTSIDE");
+        return inside;
     }
 }
@@ -0,0 +1,96 @@
+package com.properclever.pir.util;
+
+import com.properclever.pir.domain.Point;
+
+/**
+ * Precompiled, exact containment test for a validated (possibly rotated) rectangle.
+ * <p>
+ * A point is strictly inside exactly when it is strictly left of all four edges walked counterclockwise, so
+ * the corners are stored in counterclockwise order (reversed at construction if the input winds the other way)
+ * and each query is four {@link Orientation#orient2d} tests. Those use a fast floating-point filter and only
+ * drop into exact arithmetic for points within rounding distance of an edge, so answers right at the boundary
+ * are exact however large the coordinates, and the common case stays cheap.
+ * <p>
+ * When the corners and the query point are all small whole numbers (integer grid coordinates), the tests run in
+ * exact {@code long} arithmetic instead, with no error bounds at all.
+ */
+public final class GeneralRectangleKernel {
+    static final float FLOAT_ERROR = 0x1p-20f;
+
+    // package-private so the batch kernels can hoist them out of their loops; counterclockwise order
+    final double x0;
+    final double y0;
+    final double x1;
+    final double y1;
+    final double x2;
+    final double y2;
+    final double x3;
+    final double y3;
+    // every corner coordinate passes Orientation.isExactInteger
+    private final boolean integral;
+    // for the float batch kernels: edge k's test as edgeA[k] * x + edgeB[k] * y + edgeC[k] > 0, with
+    // edgeMagnitude[k] bounding |edgeC[k]| and the terms it was computed from (see floatEdgeBound)
+    final float[] edgeA = new float[4];
+    final float[] edgeB = new float[4];
+    final float[] edgeC = new float[4];
+    final float[] edgeMagnitude = new float[4];
+
+    public GeneralRectangleKernel(Point v0, Point v1, Point v2, Point v3) {
+        this(v0.x(), v0.y(), v1.x(), v1.y(), v2.x(), v2.y(), v3.x(), v3.y());
+    }
+
+    public GeneralRectangleKernel(double x0, double y0, double x1, double y1, double x2, double y2, double x3, double y3) {
+        boolean clockwise = Orientation.orient2d(x0, y0, x1, y1, x2, y2) < 0;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x2 = x2;
+        this.y2 = y2;
+        // walking v0, v3, v2, v1 turns a clockwise rectangle round
+        this.x1 = clockwise ? x3 : x1;
+        this.y1 = clockwise ? y3 : y1;
+        this.x3 = clockwise ? x1 : x3;
+        this.y3 = clockwise ? y1 : y3;
+        this.integral = Orientation.isExactInteger(x0) && Orientation.isExactInteger(y0)
+                && Orientation.isExactInteger(x1) && Orientation.isExactInteger(y1)
+                && Orientation.isExactInteger(x2) && Orientation.isExactInteger(y2)
+                && Orientation.isExactInteger(x3) && Orientation.isExactInteger(y3);
+        double[] xs = {this.x0, this.x1, this.x2, this.x3, this.x0};
+        double[] ys = {this.y0, this.y1, this.y2, this.y3, this.y0};
+        for (int k = 0; k < 4; k++) {
+            // orient2d(a, b, p) expanded as a linear function of p
+            double dx = xs[k + 1] - xs[k];
+            double dy = ys[k + 1] - ys[k];
+            edgeA[k] = (float) -dy;
+            edgeB[k] = (float) dx;
+            edgeC[k] = (float) (dy * xs[k] - dx * ys[k]);
+            edgeMagnitude[k] = Math.nextUp((float) (Math.abs(dy * xs[k]) + Math.abs(dx * ys[k])));
+        }
+    }
+
+    /**
+     * Bound on the error of edge k's test evaluated in float at (x, y), against the exact orientation: the
+     * coefficients are rounded to float and the test takes two products and two sums, which is under 8 float
+     * epsilons of the terms' magnitudes; the bound allows 16, plus the smallest normal float for underflow.
+     */
+    float floatEdgeBound(int k, float x, float y) {
+        return FLOAT_ERROR * (Math.abs(edgeA[k] * x) + Math.abs(edgeB[k] * y) + edgeMagnitude[k]) + Float.MIN_NORMAL;
+    }
+
+    public boolean contains(double x, double y) {
+        if (integral && Orientation.isExactInteger(x) && Orientation.isExactInteger(y)) {
+            return containsExactly((long) x, (long) y);
+        }
+        // most points are outside, so stop at the first edge they are not left of
+        return Orientation.orient2d(x0, y0, x1, y1, x, y) > 0
+                && Orientation.orient2d(x1, y1, x2, y2, x, y) > 0
+                && Orientation.orient2d(x2, y2, x3, y3, x, y) > 0
+                && Orientation.orient2d(x3, y3, x0, y0, x, y) > 0;
+    }
+
+    private boolean containsExactly(long x, long y) {
+        return Orientation.orient2d((long) x0, (long) y0, (long) x1, (long) y1, x, y) > 0
+                && Orientation.orient2d((long) x1, (long) y1, (long) x2, (long) y2, x, y) > 0
+                && Orientation.orient2d((long) x2, (long) y2, (long) x3, (long) y3, x, y) > 0
+                && Orientation.orient2d((long) x3, (long) y3, (long) x0, (long) y0, x, y) > 0;
+    }
+}
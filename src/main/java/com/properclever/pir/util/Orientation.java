@@ -0,0 +1,105 @@
+package com.properclever.pir.util;
+
+/**
+ * An adaptive, exact orientation predicate in the style of Shewchuk's {@code orient2d}: which side of the
+ * directed line a -> b the point c lies on.
+ * <p>
+ * The determinant is first evaluated in plain double arithmetic together with a bound on its rounding error.
+ * When the result is further from zero than the bound (almost always) its sign is certainly right; only when it
+ * is not, i.e. c is within a few ulps of the line, is the determinant recomputed exactly, as a sum of products
+ * split into exact pairs with {@link Math#fma}. So the answer is always exact, and the exact part is rarely paid
+ * for. Inputs are assumed finite and small enough that the products neither overflow nor underflow.
+ */
+public final class Orientation {
+    /**
+     * The bound (exclusive) on coordinate magnitudes for the {@code long} overload: differences of smaller
+     * coordinates are below 2^31, so the two products in the determinant are below 2^62 and their difference fits
+     * in a long.
+     */
+    public static final double MAX_EXACT_INTEGER = 0x1p30;
+
+    // Shewchuk's ccwerrboundA, (3 + 16e)e with e = 2^-53: the relative error of the double determinant
+    static final double ERROR_BOUND = (3.0 + 16.0 * 0x1p-53) * 0x1p-53;
+
+    private Orientation() {
+    }
+
+    /**
+     * Returns a positive number if a, b, c run counterclockwise (c is left of a -> b), a negative number if they
+     * run clockwise, and 0 if they are exactly collinear.
+     */
+    public static int orient2d(double ax, double ay, double bx, double by, double cx, double cy) {
+        double detLeft = (ax - cx) * (by - cy);
+        double detRight = (ay - cy) * (bx - cx);
+        double det = detLeft - detRight;
+        double bound = ERROR_BOUND * (Math.abs(detLeft) + Math.abs(detRight));
+        if (det > bound) {
+            return 1;
+        }
+        if (-det > bound) {
+            return -1;
+        }
+        return exactOrient2d(ax, ay, bx, by, cx, cy);
+    }
+
+    /**
+     * Same as {@link #orient2d(double, double, double, double, double, double)} for integer coordinates smaller
+     * than {@link #MAX_EXACT_INTEGER} in magnitude: one exact evaluation in long arithmetic, with no error bound
+     * to check.
+     */
+    public static int orient2d(long ax, long ay, long bx, long by, long cx, long cy) {
+        return Long.signum((ax - cx) * (by - cy) - (ay - cy) * (bx - cx));
+    }
+
+    /** True if the value is a whole number that the {@code long} overload can take. */
+    public static boolean isExactInteger(double value) {
+        return Math.abs(value) < MAX_EXACT_INTEGER && value == Math.rint(value);
+    }
+
+    /**
+     * The sign of the determinant, expanded as ax.by - ax.cy - ay.bx + ay.cx + bx.cy - by.cx. Each product
+     * splits exactly into a rounded product and its fma error, and the twelve parts are summed without error
+     * into a non-overlapping expansion whose largest (last non-zero) component carries the sign.
+     */
+    static int exactOrient2d(double ax, double ay, double bx, double by, double cx, double cy) {
+        double[] expansion = new double[12];
+        int length = 0;
+        length = addProduct(expansion, length, ax, by);
+        length = addProduct(expansion, length, -ax, cy);
+        length = addProduct(expansion, length, -ay, bx);
+        length = addProduct(expansion, length, ay, cx);
+        length = addProduct(expansion, length, bx, cy);
+        length = addProduct(expansion, length, -by, cx);
+        for (int i = length - 1; i >= 0; i--) {
+            if (expansion[i] != 0) {
+                return expansion[i] > 0 ? 1 : -1;
+            }
+        }
+        return 0;
+    }
+
+    private static int addProduct(double[] expansion, int length, double a, double b) {
+        double product = a * b;
+        double error = Math.fma(a, b, -product);
+        length = grow(expansion, length, error);
+        return grow(expansion, length, product);
+    }
+
+    // Shewchuk's Grow-Expansion: adds b to the expansion, keeping its components non-overlapping and in
+    // increasing order of magnitude
+    private static int grow(double[] expansion, int length, double b) {
+        double q = b;
+        for (int i = 0; i < length; i++) {
+            double e = expansion[i];
+            // two-sum: q + e == sum + error exactly
+            double sum = q + e;
+            double bVirtual = sum - q;
+            double aVirtual = sum - bVirtual;
+            double error = (q - aVirtual) + (e - bVirtual);
+            expansion[i] = error;
+            q = sum;
+        }
+        expansion[length] = q;
+        return length + 1;
+    }
+}
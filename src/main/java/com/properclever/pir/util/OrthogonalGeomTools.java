@@ -1,187 +1,207 @@
 package com.properclever.pir.util;
 
 import com.properclever.pir.domain.*;
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.metrics.PipelineEvent;
+import com.properclever.pir.metrics.QueryEvent;
+import com.properclever.pir.metrics.Stage;
+import com.properclever.pir.metrics.ValidateEvent;
 
 import java.util.*;
 
 public class OrthogonalGeomTools implements PointInRectangleCheckable {
 
-    private static boolean isCyclicRotation(List<Point> a, List<Point> b) {
-        // check if list 'a' is a cyclic rotation of list 'b'
-        if (a.size() != b.size()) {
-            return false;
-        }
-        int n = a.size();
-        for (int shift = 0; shift < n; shift++) {
-            boolean match = true;
-            for (int i = 0; i < n; i++) {
-                if (!a.get(i).equals(b.get((i + shift) % n))) {
-                    match = false;
-                    break;
-                }
-            }
-            if (match) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * The (orthogonal) bounding box of the points, or null if it is degenerate. A plain query: unlike
+     * {@link #validate}, it reports nothing to the {@link DiagnosticsSink}.
+     */
+    public BoundingBox getValidBoundingBox(List<Point> points) {
+        BoundingBox bbox = new UnknownShape(points).getBoundingBox();
+        return bbox.dimensions() == 2 ? bbox : null;
     }
 
-    private boolean validateUniquePoints(List<Point> points) {
-        // check that the points list is non-null and contains at least 4 unique points
-        if (points == null || points.isEmpty()) {
-            System.out.println("Invalid rectangle: Points list is null or empty.");
-            return false;
-        }
-        Set<Point> uniquePoints = new HashSet<>(points);
-        if (uniquePoints.size() < 4) {
-            System.out.println("Invalid rectangle: Only " + uniquePoints.size() + " unique point(s).");
-            return false;
-        }
-        return true;
+    /**
+     * Validates the points as an orthogonal rectangle without throwing.
+     * The outcome is also reported to the current {@link DiagnosticsSink}.
+     *
+     * @return null if the points form a valid rectangle, otherwise the first rule they broke.
+     */
+    public RejectionReason validate(List<Point> points) {
+        return validate(points == null ? null : PointBuffer.of(points));
     }
 
-    public BoundingBox getValidBoundingBox(List<Point> points) {
-        // get (an orthogonal) bounding box for the points; return null if the shape is degenerate
-        BoundingBox bbox = new UnknownShape(points).getBoundingBox();
-        if (bbox.dimensions() != 2) {
-            System.out.println("Invalid rectangle: Shape coordinate(s) in a line or at one point.");
-            return null;
-        }
-        return bbox;
+    /** Same as {@link #validate(List)}, without boxing a Point per vertex. */
+    public RejectionReason validate(PointBuffer points) {
+        long start = Metrics.start();
+        ValidateEvent event = new ValidateEvent();
+        event.begin();
+        RejectionReason reason = firstRejection(points);
+        Metrics.stop(Stage.VALIDATE_ORTHOGONAL, start);
+        event.complete(PipelineEvent.ORTHOGONAL, points == null ? 0 : points.size(), PipelineEvent.outcome(reason));
+        if (reason == null) {
+            Diagnostics.sink().accepted();
+        } else {
+            Diagnostics.sink().rejected(reason);
+        }
+        return reason;
     }
 
-    private List<Point> createClosedPoints(List<Point> points) {
-        // ensure we have a closed list, add extra point if necessary,
-        // so we can analyse all lines
-        List<Point> closedPoints = new ArrayList<>(points);
-        if (!points.getFirst().equals(points.getLast())) {
-            closedPoints.add(points.getFirst());
-        }
-        return closedPoints;
+    public boolean isValidRectangle(List<Point> points) {
+        return validate(points) == null;
     }
 
-    private boolean validateSegments(List<Point> closedPoints, BoundingBox bbox) {
-        // check each segment is axis-aligned and every point is on the bounding box
-        for (int i = 0; i < closedPoints.size() - 1; i++) {
-            Point current = closedPoints.get(i);
-            Point next = closedPoints.get(i + 1);
-            double dx = next.x() - current.x();
-            double dy = next.y() - current.y();
-            if (dx != 0 && dy != 0) {
-                System.out.println("Invalid rectangle: Found a segment that is not horizontal or vertical.");
-                return false;
-            }
-            if (!(current.x() == bbox.minPoint().x() || current.x() == bbox.maxPoint().x() || current.y() == bbox.minPoint().y() || current.y() == bbox.maxPoint().y())) {
-                System.out.println("Invalid rectangle: Found a point that's not on the bounding box.");
-                return false;
-            }
+    /**
+     * Applies the rules in order and returns the first one broken, in two linear sweeps with everything held
+     * in locals (no copies, sets, vertex lists or direction strings):
+     * <ol>
+     *     <li>at least 4 unique points (only the first four distinct ones need remembering);</li>
+     *     <li>a bounding box that isn't degenerate;</li>
+     *     <li>every segment of the closed loop axis-aligned, and every point on the bounding box;</li>
+     *     <li>no backtracking within an edge;</li>
+     *     <li>exactly 4 turning vertices;</li>
+     *     <li>the vertices in clockwise or anticlockwise order round the bounding box (else it's a bowtie!).</li>
+     * </ol>
+     * Rule 3 needs the final bounds, so they get a sweep of their own; rules 3 to 6 share the second.
+     */
+    private RejectionReason firstRejection(PointBuffer points) {
+        if (points == null || points.isEmpty()) {
+            return RejectionReason.NULL_OR_EMPTY;
         }
-        return true;
-    }
+        int n = points.size();
 
-    private List<Point> extractVertices(List<Point> closedPoints) {
-        // collapse consecutive collinear segments to extract "turning"/corner vertices.
-        // return null if backtracking is detected
-        List<Point> vertices = new ArrayList<>();
-        vertices.add(closedPoints.get(0));
-        if (closedPoints.size() < 2) {
-            return vertices;
+        // sweep 1: the bounds, and up to four distinct points
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double d1x = 0, d1y = 0, d2x = 0, d2y = 0;
+        int distinct = 1;
+        for (int i = 0; i < n; i++) {
+            double x = points.x(i);
+            double y = points.y(i);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            if (distinct < 4 && !same(x, y, points.x(0), points.y(0))
+                    && !(distinct > 1 && same(x, y, d1x, d1y))
+                    && !(distinct > 2 && same(x, y, d2x, d2y))) {
+                if (distinct == 1) {
+                    d1x = x;
+                    d1y = y;
+                } else if (distinct == 2) {
+                    d2x = x;
+                    d2y = y;
+                }
+                distinct++;
+            }
+        }
+        if (distinct < 4) {
+            return RejectionReason.TOO_FEW_UNIQUE_POINTS;
+        }
+        // as BoundingBox.dimensions() != 2
+        if (Double.compare(minX, maxX) == 0 || Double.compare(minY, maxY) == 0) {
+            return RejectionReason.DEGENERATE_BOUNDS;
         }
-        double initialDx = closedPoints.get(1).x() - closedPoints.get(0).x();
-        double initialDy = closedPoints.get(1).y() - closedPoints.get(0).y();
-        String prevDir = (Math.abs(initialDx) > 0 ? "H" : "V");
-        int prevSign = (prevDir.equals("H") ? (initialDx > 0 ? 1 : -1) : (initialDy > 0 ? 1 : -1));
-
-        for (int i = 1; i < closedPoints.size() - 1; i++) {
-            Point current = closedPoints.get(i);
-            Point next = closedPoints.get(i + 1);
-            double dx = next.x() - current.x();
-            double dy = next.y() - current.y();
-            String currDir = (Math.abs(dx) > 0 ? "H" : "V");
-            int currSign = (currDir.equals("H") ? (dx > 0 ? 1 : -1) : (dy > 0 ? 1 : -1));
 
-            if (currDir.equals(prevDir)) {
-                // Detect backtracking.
-                if (currSign != prevSign) {
-                    System.out.printf("Invalid rectangle: Backtracking detected at point %s%n", current);
-                    return null;
-                }
+        // sweep 2: the segments of the loop closed back to point 0 (unless it already ends there)
+        int segments = same(points.x(0), points.y(0), points.x(n - 1), points.y(n - 1)) ? n - 1 : n;
+        boolean backtrack = false;
+        boolean prevHorizontal = false;
+        int prevSign = 0;
+        // the turning vertices: the first one's coordinates, the corner positions of the next three,
+        // and the latest one's coordinates
+        double firstX = points.x(0);
+        double firstY = points.y(0);
+        double lastX = firstX;
+        double lastY = firstY;
+        int vertices = 1;
+        int corner1 = -1, corner2 = -1, corner3 = -1;
+        for (int i = 0; i < segments; i++) {
+            int next = i + 1 < n ? i + 1 : 0;
+            double x = points.x(i);
+            double y = points.y(i);
+            double dx = points.x(next) - x;
+            double dy = points.y(next) - y;
+            if (dx != 0 && dy != 0) {
+                return RejectionReason.NOT_AXIS_ALIGNED;
+            }
+            if (!(x == minX || x == maxX || y == minY || y == maxY)) {
+                return RejectionReason.OFF_BOUNDING_BOX;
+            }
+            if (backtrack) {
+                // the verdict is settled unless a later segment breaks rule 3
+                continue;
+            }
+            // a zero-length segment counts as vertical and downwards
+            boolean horizontal = Math.abs(dx) > 0;
+            int sign = horizontal ? (dx > 0 ? 1 : -1) : (dy > 0 ? 1 : -1);
+            if (i > 0 && horizontal == prevHorizontal) {
+                backtrack = sign != prevSign;
             } else {
-                if (!vertices.getLast().equals(current)) {
-                    vertices.add(current);
+                if (i > 0 && !same(x, y, lastX, lastY)) {
+                    int corner = cornerPosition(x, y, minX, minY, maxX, maxY);
+                    if (vertices == 1) {
+                        corner1 = corner;
+                    } else if (vertices == 2) {
+                        corner2 = corner;
+                    } else if (vertices == 3) {
+                        corner3 = corner;
+                    }
+                    vertices++;
+                    lastX = x;
+                    lastY = y;
                 }
-                prevDir = currDir;
-                prevSign = currSign;
+                prevHorizontal = horizontal;
+                prevSign = sign;
             }
         }
-        // Remove duplicate if first and last vertex are the same.
-        if (vertices.size() > 1 && vertices.getFirst().equals(vertices.getLast())) {
-            vertices.removeLast();
+        if (backtrack) {
+            return RejectionReason.BACKTRACK;
         }
-        return vertices;
-    }
-
-    private boolean validateVertexCount(List<Point> vertices) {
-        // check that there are exactly 4 "turning" vertices
-        if (vertices == null || vertices.size() != 4) {
-            System.out.printf("Invalid rectangle: %d turning vertices.%n", vertices == null ? 0 : vertices.size());
-            return false;
+        // a loop that starts on a corner turns there again at the end
+        if (vertices > 1 && same(firstX, firstY, lastX, lastY)) {
+            vertices--;
+        }
+        if (vertices != 4) {
+            return RejectionReason.WRONG_VERTEX_COUNT;
+        }
+        // walking round the box, every step must be one corner on in the same direction
+        int corner0 = cornerPosition(firstX, firstY, minX, minY, maxX, maxY);
+        if (corner0 < 0 || corner1 < 0 || corner2 < 0 || corner3 < 0) {
+            return RejectionReason.BOWTIE;
         }
-        return true;
+        int step = (corner1 - corner0) & 3;
+        boolean inOrder = (step == 1 || step == 3) && ((corner2 - corner1) & 3) == step && ((corner3 - corner2) & 3) == step;
+        return inOrder ? null : RejectionReason.BOWTIE;
     }
 
-    private boolean validateVertexOrder(List<Point> vertices, BoundingBox bbox) {
-        // check vertices are arranged in a valid cyclic (clockwise or anticlockwise) order.
-        List<Point> expectedPointsClockwise = bbox.getBoundingPoints();
-        List<Point> expectedPointsAnticlockwise = new ArrayList<>(expectedPointsClockwise);
-        Collections.reverse(expectedPointsAnticlockwise);
-        boolean isCyclic = isCyclicRotation(vertices, expectedPointsClockwise) || isCyclicRotation(vertices, expectedPointsAnticlockwise);
-        if (!isCyclic) {
-            System.out.println("Invalid rectangle: vertices are not arranged in a valid clockwise/anticlockwise order.");
-            return false;
-        }
-        return true;
+    // equality as Point.equals has it
+    private static boolean same(double x1, double y1, double x2, double y2) {
+        return Double.compare(x1, x2) == 0 && Double.compare(y1, y2) == 0;
     }
 
-    public boolean isValidRectangle(List<Point> points) {
-        // systematically apply rules to weed out invalid rectangles with early exits
-        // 1. check there are at least 4 unique points
-        if (!validateUniquePoints(points)) {
-            return false;
-        }
-        // 2. get the bounding box of all the points
-        BoundingBox bbox = getValidBoundingBox(points);
-        if (bbox == null) {
-            return false;
-        }
-        // 3. close the point loop if not already (last == first)
-        List<Point> closedPoints = createClosedPoints(points);
-        // 4. check all segments are horizontal/vertical and lie on bbox
-        if (!validateSegments(closedPoints, bbox)) {
-            return false;
-        }
-        // 5. detect mid-edge backtracking (return null) and collapse edges
-        List<Point> vertices = extractVertices(closedPoints);
-        // 6. check backtracking then check we now have 4 (corner) vertices
-        if (vertices == null || !validateVertexCount(vertices)) {
-            return false;
-        }
-        // 7. ensure corner vertices are in the correct order
-        if (!validateVertexOrder(vertices, bbox)) {
-            // bowtie!
-            return false;
-        }
-        System.out.println("Shape is a valid orthogonal rectangle!");
-        return true;
+    // the position 0..3 of (x, y) in BoundingBox.getBoundingPoints() order (clockwise from the minimum), or -1
+    // if it isn't a corner of the box
+    private static int cornerPosition(double x, double y, double minX, double minY, double maxX, double maxY) {
+        int column = Double.compare(x, minX) == 0 ? 0 : Double.compare(x, maxX) == 0 ? 1 : -1;
+        int row = Double.compare(y, minY) == 0 ? 0 : Double.compare(y, maxY) == 0 ? 1 : -1;
+        if (column < 0 || row < 0) {
+            return -1;
+        }
+        return column == 0 ? row : 3 - row;
     }
 
     @Override
-    public boolean checkPointInRectangle(Shape rectangle, Point testPoint) {
+    public boolean checkPointInRectangle(Shape rectangle, double x, double y) {
+        long start = Metrics.start();
+        QueryEvent event = new QueryEvent();
+        event.begin();
         OrthogonalRectangle orthRect = (OrthogonalRectangle) rectangle;
-        double x = testPoint.x();
-        double y = testPoint.y();
         // a point on the boundary not valid so must use strictly less-than/greater-than comparisons
-        return x > orthRect.bottomLeft.x() && x < orthRect.bottomRight.x() && y > orthRect.bottomLeft.y() && y < orthRect.topLeft.y();
+        boolean inside = x > orthRect.bottomLeft.x() && x < orthRect.bottomRight.x() && y > orthRect.bottomLeft.y() && y < orthRect.topLeft.y();
+        Metrics.stop(Stage.CONTAINS, start);
+        event.complete(PipelineEvent.ORTHOGONAL, 4, inside ? "INSIDE" : "OUTSIDE");
+        return inside;
     }
 }
\ No newline at end of file
@@ -4,5 +4,9 @@ import com.properclever.pir.domain.Point;
 import com.properclever.pir.domain.Shape;
 
 public interface PointInRectangleCheckable {
-    boolean checkPointInRectangle(Shape rectangle, Point testPoint);
+    boolean checkPointInRectangle(Shape rectangle, double x, double y);
+
+    default boolean checkPointInRectangle(Shape rectangle, Point testPoint) {
+        return checkPointInRectangle(rectangle, testPoint.x(), testPoint.y());
+    }
 }
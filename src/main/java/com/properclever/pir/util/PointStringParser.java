@@ -1,18 +1,25 @@
 package com.properclever.pir.util;
 
 import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.metrics.Metrics;
+import com.properclever.pir.metrics.ParseEvent;
+import com.properclever.pir.metrics.Stage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
+/**
+ * Parses the bracketed coordinate formats used on the command line, e.g. {@code [[1,1], [1,3], [3,3]]} and
+ * {@code [2,2]}.
+ * <p>
+ * This is a hand-written, single-pass character scanner rather than a regex: coordinates are decoded straight
+ * into primitive double arrays with no intermediate substrings, and only the error paths build strings.
+ * The accepted grammar is unchanged: each number is an optional sign followed by digits with an optional
+ * fractional part (e.g. {@code 3}, {@code -2.5}, {@code +.5}), and whitespace may surround every token.
+ */
 public class PointStringParser {
 
-    // Reusable regex pattern for matching a single coordinate pair.
-    private static final Pattern COORDINATE_PAIR_PATTERN =
-            Pattern.compile("\\[\\s*([-+]?\\d*\\.?\\d+)\\s*,\\s*([-+]?\\d*\\.?\\d+)\\s*]");
-
     /**
      * Parses a string representing an array of coordinate pairs (e.g. [[-1,-1], [-1,1], [1,1], [1,-1]])
      * into a list of Point objects.
@@ -22,73 +29,298 @@ public class PointStringParser {
      * @throws IllegalArgumentException if the input does not match the expected format.
      */
     public static List<Point> parsePointArray(String input) {
-        if (input == null || input.trim().isEmpty()) {
+        long start = Metrics.start();
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        int count = -1;
+        try {
+            CoordinateScanner scanner = scanPointArray(input);
+            List<Point> points = new ArrayList<>(scanner.count);
+            for (int i = 0; i < scanner.count; i++) {
+                points.add(new Point(scanner.xs[i], scanner.ys[i]));
+            }
+            count = points.size();
+            return points;
+        } finally {
+            Metrics.stop(Stage.PARSE, start);
+            event.complete("", Math.max(count, 0), count < 0 ? "ERROR" : "OK");
+        }
+    }
+
+    /**
+     * Same as {@link #parsePointArray(String)}, but returns the coordinates as a heap {@link PointBuffer}
+     * over the scanned columns, so no Point is created.
+     */
+    public static PointBuffer parsePointBuffer(String input) {
+        long start = Metrics.start();
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        int count = -1;
+        try {
+            CoordinateScanner scanner = scanPointArray(input);
+            count = scanner.count;
+            return PointBuffer.wrap(scanner.xs, scanner.ys, scanner.count);
+        } finally {
+            Metrics.stop(Stage.PARSE, start);
+            event.complete("", Math.max(count, 0), count < 0 ? "ERROR" : "OK");
+        }
+    }
+
+    /**
+     * Same as {@link #parsePointBuffer(String)}, but appends the coordinates to {@code target}, which may be
+     * off-heap. Nothing is appended if the input does not parse.
+     */
+    public static void parsePointBuffer(String input, PointBuffer target) {
+        PointBuffer parsed = parsePointBuffer(input);
+        for (int i = 0; i < parsed.size(); i++) {
+            target.add(parsed.x(i), parsed.y(i));
+        }
+    }
+
+    /**
+     * Parses a string representing a single coordinate pair (e.g. [0,0] or [4.5, -8.7])
+     * into a Point object.
+     *
+     * @param input the string to parse.
+     * @return a Point object.
+     * @throws IllegalArgumentException if the input does not match the expected format.
+     */
+    public static Point parsePoint(String input) {
+        long start = Metrics.start();
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        boolean parsed = false;
+        try {
+            if (input == null || trimStart(input, 0, input.length()) == input.length()) {
+                throw new IllegalArgumentException("Input string is null or empty.");
+            }
+            int to = trimEnd(input, 0, input.length());
+            int from = trimStart(input, 0, to);
+            CoordinateScanner scanner = new CoordinateScanner(input, 1);
+            if (scanner.matchPair(from) != to) {
+                throw new IllegalArgumentException("Input does not match expected point format: " + input);
+            }
+            parsed = true;
+            return new Point(scanner.pairX, scanner.pairY);
+        } finally {
+            Metrics.stop(Stage.PARSE, start);
+            event.complete("", parsed ? 1 : 0, parsed ? "OK" : "ERROR");
+        }
+    }
+
+    static CoordinateScanner scanPointArray(String input) {
+        if (input == null || trimStart(input, 0, input.length()) == input.length()) {
             throw new IllegalArgumentException("Input string is null or empty.");
         }
-        String trimmed = input.trim();
-        if (!trimmed.startsWith("[") || !trimmed.endsWith("]")) {
+        int to = trimEnd(input, 0, input.length());
+        int from = trimStart(input, 0, to);
+        if (input.charAt(from) != '[' || input.charAt(to - 1) != ']') {
             throw new IllegalArgumentException("Input must start with '[' and end with ']'.");
         }
 
         // Remove the outermost brackets.
-        String inner = trimmed.substring(1, trimmed.length() - 1).trim();
-        if (inner.isEmpty()) {
+        int innerTo = trimEnd(input, from + 1, to - 1);
+        int innerFrom = trimStart(input, from + 1, innerTo);
+        if (innerFrom == innerTo) {
             throw new IllegalArgumentException("No valid coordinate pairs found.");
         }
-        if (!inner.startsWith("[") || !inner.endsWith("]")) {
+        if (input.charAt(innerFrom) != '[' || input.charAt(innerTo - 1) != ']') {
             throw new IllegalArgumentException("No valid list found.");
         }
-        Matcher matcher = COORDINATE_PAIR_PATTERN.matcher(inner);
-        List<Point> points = new ArrayList<>();
-        int lastIndex = 0;
-        while (matcher.find()) {
+
+        CoordinateScanner scanner = new CoordinateScanner(input, 8);
+        int lastEnd = innerFrom;
+        int searchFrom = innerFrom;
+        while (searchFrom < innerTo) {
+            // find the next position where a complete coordinate pair starts
+            int matchEnd = -1;
+            int matchStart = searchFrom;
+            for (; matchStart < innerTo; matchStart++) {
+                if (input.charAt(matchStart) == '[' && (matchEnd = scanner.matchPair(matchStart, innerTo)) >= 0) {
+                    break;
+                }
+            }
+            if (matchEnd < 0) {
+                break;
+            }
             // For coordinate pairs after the first, the separator must be a comma.
-            if (lastIndex != 0) {
-                String gap = inner.substring(lastIndex, matcher.start()).trim();
-                if (!gap.equals(",")) {
-                    throw new IllegalArgumentException("Invalid separator between coordinate pairs: '" + gap + "'");
+            if (scanner.count > 0) {
+                int gapTo = trimEnd(input, lastEnd, matchStart);
+                int gapFrom = trimStart(input, lastEnd, gapTo);
+                if (gapTo - gapFrom != 1 || input.charAt(gapFrom) != ',') {
+                    throw new IllegalArgumentException("Invalid separator between coordinate pairs: '" + input.substring(gapFrom, gapTo) + "'");
                 }
             }
-            points.add(parsePoint(matcher.group(0)));
-            lastIndex = matcher.end();
+            scanner.addPair();
+            lastEnd = matchEnd;
+            searchFrom = matchEnd;
         }
         // Check for any trailing text after the last valid pair.
-        String trailing = inner.substring(lastIndex).trim();
-        if (!trailing.isEmpty()) {
+        if (scanner.count == 0 || trimStart(input, lastEnd, innerTo) != innerTo) {
             throw new IllegalArgumentException("Extra characters found after the last coordinate pair.");
         }
-        String result = points.stream()
-                .map(Point::toString)
-                .collect(Collectors.joining(", "));
-//        System.out.println("Parsed point array list: [" + result + "]");
-        return points;
+        return scanner;
+    }
+
+    // same notion of whitespace as String.trim()
+    private static int trimStart(String s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String s, int from, int to) {
+        while (to > from && s.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
     }
 
     /**
-     * Parses a string representing a single coordinate pair (e.g. [0,0] or [4.5, -8.7])
-     * into a Point object.
-     *
-     * @param input the string to parse.
-     * @return a Point object.
-     * @throws IllegalArgumentException if the input does not match the expected format.
+     * Scanner state for one parse: the text, the last matched pair and the coordinates collected so far.
+     * One instance is created per call, none per point.
      */
-    public static Point parsePoint(String input) {
-        if (input == null || input.trim().isEmpty()) {
-            throw new IllegalArgumentException("Input string is null or empty.");
+    static final class CoordinateScanner {
+        // powers of ten that are exactly representable as doubles
+        private static final double[] EXACT_POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+        // up to 15 significant digits always fit the 53-bit mantissa exactly
+        private static final int MAX_EXACT_DIGITS = 15;
+
+        private final String text;
+        double[] xs;
+        double[] ys;
+        int count;
+        double pairX;
+        double pairY;
+        private double number;
+
+        CoordinateScanner(String text, int capacity) {
+            this.text = text;
+            this.xs = new double[capacity];
+            this.ys = new double[capacity];
         }
-        String trimmed = input.trim();
-        Matcher matcher = COORDINATE_PAIR_PATTERN.matcher(trimmed);
-        if (!matcher.matches()) {
-            throw new IllegalArgumentException("Input does not match expected point format: " + input);
+
+        void addPair() {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+            }
+            xs[count] = pairX;
+            ys[count] = pairY;
+            count++;
         }
-        try {
-            double x = Double.parseDouble(matcher.group(1));
-            double y = Double.parseDouble(matcher.group(2));
-            Point result = new Point(x, y);
-//            System.out.printf("Parsed point: [%s]%n", result);
-            return result;
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid number format in coordinate pair.", e);
+
+        int matchPair(int start) {
+            return matchPair(start, text.length());
+        }
+
+        /**
+         * Tries to match "[ number , number ]" starting exactly at {@code start} and ending by {@code limit}.
+         * On success stores the pair in pairX/pairY and returns the index just past the closing bracket,
+         * otherwise returns -1.
+         */
+        int matchPair(int start, int limit) {
+            int i = start;
+            if (i >= limit || text.charAt(i) != '[') {
+                return -1;
+            }
+            i = skipWhitespace(i + 1, limit);
+            if ((i = matchNumber(i, limit)) < 0) {
+                return -1;
+            }
+            double x = number;
+            i = skipWhitespace(i, limit);
+            if (i >= limit || text.charAt(i) != ',') {
+                return -1;
+            }
+            i = skipWhitespace(i + 1, limit);
+            if ((i = matchNumber(i, limit)) < 0) {
+                return -1;
+            }
+            i = skipWhitespace(i, limit);
+            if (i >= limit || text.charAt(i) != ']') {
+                return -1;
+            }
+            pairX = x;
+            pairY = number;
+            return i + 1;
+        }
+
+        // whitespace between tokens, as matched by \s
+        private int skipWhitespace(int i, int limit) {
+            while (i < limit) {
+                char c = text.charAt(i);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != '\f' && c != '\u000B') {
+                    break;
+                }
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Matches [-+]? (digits ('.' digits)? | '.' digits) at {@code start}, stores the value in
+         * {@code number} and returns the index just past it, or -1 if there is no number here.
+         */
+        private int matchNumber(int start, int limit) {
+            int i = start;
+            boolean negative = false;
+            if (i < limit && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negative = text.charAt(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int significantDigits = 0;
+            int fractionDigits = 0;
+            int integerStart = i;
+            while (i < limit && isDigit(text.charAt(i))) {
+                mantissa = accumulate(mantissa, text.charAt(i), significantDigits);
+                significantDigits += (mantissa != 0) ? 1 : 0;
+                i++;
+            }
+            boolean hasInteger = i > integerStart;
+            if (i < limit && text.charAt(i) == '.') {
+                int fractionStart = i + 1;
+                int j = fractionStart;
+                while (j < limit && isDigit(text.charAt(j))) {
+                    mantissa = accumulate(mantissa, text.charAt(j), significantDigits);
+                    significantDigits += (mantissa != 0) ? 1 : 0;
+                    j++;
+                }
+                if (j > fractionStart) {
+                    fractionDigits = j - fractionStart;
+                    i = j;
+                } else if (!hasInteger) {
+                    // a lone '.' is not a number
+                    return -1;
+                }
+                // else: "1." is not a number either, but "1" is, so stop before the '.'
+            } else if (!hasInteger) {
+                return -1;
+            }
+
+            if (significantDigits <= MAX_EXACT_DIGITS && fractionDigits < EXACT_POWERS_OF_TEN.length) {
+                // both operands are exact, so the single division is correctly rounded; integers (grid feeds)
+                // need no division at all
+                double value = fractionDigits == 0 ? (double) mantissa : mantissa / EXACT_POWERS_OF_TEN[fractionDigits];
+                number = negative ? -value : value;
+            } else {
+                number = Double.parseDouble(text.substring(start, i));
+            }
+            return i;
+        }
+
+        private static long accumulate(long mantissa, char digit, int significantDigits) {
+            // past the exact range the value comes from the slow path, so just stop accumulating
+            return significantDigits <= MAX_EXACT_DIGITS ? mantissa * 10 + (digit - '0') : mantissa;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
         }
     }
-}
\ No newline at end of file
+}
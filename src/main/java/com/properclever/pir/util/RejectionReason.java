@@ -0,0 +1,27 @@
+package com.properclever.pir.util;
+
+/**
+ * Why a list of points was rejected as a rectangle.
+ */
+public enum RejectionReason {
+    /** The points list was null or empty. */
+    NULL_OR_EMPTY,
+    /** Fewer than four distinct points. */
+    TOO_FEW_UNIQUE_POINTS,
+    /** All points lie on one line or at one point. */
+    DEGENERATE_BOUNDS,
+    /** A segment is neither horizontal nor vertical (orthogonal rectangles only). */
+    NOT_AXIS_ALIGNED,
+    /** A point lies inside the bounding box rather than on its edge (orthogonal rectangles only). */
+    OFF_BOUNDING_BOX,
+    /** Two consecutive points coincide. */
+    ZERO_LENGTH_SEGMENT,
+    /** An edge doubles back on itself. */
+    BACKTRACK,
+    /** A turn that isn't 90 degrees (general rectangles only). */
+    NOT_RIGHT_ANGLE,
+    /** After collapsing collinear runs there aren't exactly four corners. */
+    WRONG_VERTEX_COUNT,
+    /** Four corners, but not in clockwise or anticlockwise order (a bowtie). */
+    BOWTIE
+}
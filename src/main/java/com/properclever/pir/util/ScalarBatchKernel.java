@@ -0,0 +1,103 @@
+package com.properclever.pir.util;
+
+import java.util.BitSet;
+
+/**
+ * Plain loop implementation, used whenever the Vector API isn't available (and for the tail of a batch
+ * that doesn't fill a whole vector).
+ */
+final class ScalarBatchKernel implements BatchContainmentKernel {
+
+    @Override
+    public void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                                      double[] xs, double[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        orthogonalRange(minX, minY, maxX, maxY, xs, ys, 0, length, results);
+    }
+
+    // sets (never clears) the bits for [from, to); callers clear the range first
+    static void orthogonalRange(double minX, double minY, double maxX, double maxY,
+                                double[] xs, double[] ys, int from, int to, BitSet results) {
+        for (int i = from; i < to; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            if (x > minX && x < maxX && y > minY && y < maxY) {
+                results.set(i);
+            }
+        }
+    }
+
+    @Override
+    public void containsAllGeneral(GeneralRectangleKernel frame, double[] xs, double[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        generalRange(frame, xs, ys, 0, length, results);
+    }
+
+    @Override
+    public void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                                      float[] xs, float[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        orthogonalRange(floatBelow(minX), floatBelow(minY), floatAbove(maxX), floatAbove(maxY), xs, ys, 0, length, results);
+    }
+
+    // the float bounds from floatBelow/floatAbove, so the comparisons are exact
+    static void orthogonalRange(float minX, float minY, float maxX, float maxY,
+                                float[] xs, float[] ys, int from, int to, BitSet results) {
+        for (int i = from; i < to; i++) {
+            float x = xs[i];
+            float y = ys[i];
+            if (x > minX && x < maxX && y > minY && y < maxY) {
+                results.set(i);
+            }
+        }
+    }
+
+    @Override
+    public void containsAllGeneral(GeneralRectangleKernel frame, float[] xs, float[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        generalRange(frame, xs, ys, 0, length, results);
+    }
+
+    static void generalRange(GeneralRectangleKernel frame, float[] xs, float[] ys, int from, int to, BitSet results) {
+        for (int i = from; i < to; i++) {
+            float x = xs[i];
+            float y = ys[i];
+            boolean certain = true;
+            boolean inside = true;
+            for (int k = 0; k < 4 && inside; k++) {
+                float det = frame.edgeA[k] * x + frame.edgeB[k] * y + frame.edgeC[k];
+                float bound = frame.floatEdgeBound(k, x, y);
+                if (-det > bound) {
+                    // certainly right of this edge
+                    inside = false;
+                    certain = true;
+                } else if (det <= bound) {
+                    certain = false;
+                }
+            }
+            if (certain ? inside : frame.contains(x, y)) {
+                results.set(i);
+            }
+        }
+    }
+
+    /** The largest float not above {@code value}: for a float x, x > value exactly when x > floatBelow(value). */
+    static float floatBelow(double value) {
+        float rounded = (float) value;
+        return rounded > value ? Math.nextDown(rounded) : rounded;
+    }
+
+    /** The smallest float not below {@code value}: for a float x, x < value exactly when x < floatAbove(value). */
+    static float floatAbove(double value) {
+        float rounded = (float) value;
+        return rounded < value ? Math.nextUp(rounded) : rounded;
+    }
+
+    static void generalRange(GeneralRectangleKernel frame, double[] xs, double[] ys, int from, int to, BitSet results) {
+        for (int i = from; i < to; i++) {
+            if (frame.contains(xs[i], ys[i])) {
+                results.set(i);
+            }
+        }
+    }
+}
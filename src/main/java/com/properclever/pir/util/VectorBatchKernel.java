@@ -0,0 +1,156 @@
+package com.properclever.pir.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.BitSet;
+
+/**
+ * SIMD implementation on the incubating Vector API: a whole lane of x/y coordinates is compared against
+ * the rectangle bounds at once, and the resulting mask is turned into bits.
+ * <p>
+ * Only loaded by {@link BatchKernels} when the JVM was started with {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorBatchKernel implements BatchContainmentKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    // twice the lanes of SPECIES, which is the point of float batches
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                                      double[] xs, double[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+            VectorMask<Double> inside = x.compare(VectorOperators.GT, minX)
+                    .and(x.compare(VectorOperators.LT, maxX))
+                    .and(y.compare(VectorOperators.GT, minY))
+                    .and(y.compare(VectorOperators.LT, maxY));
+            setBits(results, i, inside.toLong());
+        }
+        ScalarBatchKernel.orthogonalRange(minX, minY, maxX, maxY, xs, ys, i, length, results);
+    }
+
+    /**
+     * The four filtered orientation tests of {@link GeneralRectangleKernel#contains}, one lane of points at a
+     * time. A lane whose four determinants all clear their error bounds on the inside is certainly inside, and
+     * one that is certainly right of any edge is certainly outside; the rare lanes that are neither (points
+     * within rounding distance of an edge) are re-checked with the scalar, exact test. So the results are exact
+     * and agree with the scalar path.
+     */
+    @Override
+    public void containsAllGeneral(GeneralRectangleKernel frame, double[] xs, double[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        // the corners in counterclockwise order, edge k running from corner k to corner k + 1
+        double[] cornerXs = {frame.x0, frame.x1, frame.x2, frame.x3, frame.x0};
+        double[] cornerYs = {frame.y0, frame.y1, frame.y2, frame.y3, frame.y0};
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+            // lanes certainly left of every edge so far, and lanes certainly right of at least one
+            VectorMask<Double> inside = SPECIES.maskAll(true);
+            VectorMask<Double> outside = SPECIES.maskAll(false);
+            for (int k = 0; k < 4; k++) {
+                // Orientation.orient2d's filter, lane-wise
+                DoubleVector detLeft = DoubleVector.broadcast(SPECIES, cornerXs[k]).sub(x)
+                        .mul(DoubleVector.broadcast(SPECIES, cornerYs[k + 1]).sub(y));
+                DoubleVector detRight = DoubleVector.broadcast(SPECIES, cornerYs[k]).sub(y)
+                        .mul(DoubleVector.broadcast(SPECIES, cornerXs[k + 1]).sub(x));
+                DoubleVector det = detLeft.sub(detRight);
+                DoubleVector errorBound = detLeft.abs().add(detRight.abs()).mul(Orientation.ERROR_BOUND);
+                inside = inside.and(det.compare(VectorOperators.GT, errorBound));
+                outside = outside.or(det.neg().compare(VectorOperators.GT, errorBound));
+            }
+            setBits(results, i, inside.toLong());
+            long uncertain = inside.or(outside).not().toLong();
+            while (uncertain != 0) {
+                int lane = i + Long.numberOfTrailingZeros(uncertain);
+                if (frame.contains(xs[lane], ys[lane])) {
+                    results.set(lane);
+                }
+                uncertain &= uncertain - 1;
+            }
+        }
+        ScalarBatchKernel.generalRange(frame, xs, ys, i, length, results);
+    }
+
+    @Override
+    public void containsAllOrthogonal(double minX, double minY, double maxX, double maxY,
+                                      float[] xs, float[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        float lowX = ScalarBatchKernel.floatBelow(minX);
+        float lowY = ScalarBatchKernel.floatBelow(minY);
+        float highX = ScalarBatchKernel.floatAbove(maxX);
+        float highY = ScalarBatchKernel.floatAbove(maxY);
+        int lanes = FLOAT_SPECIES.length();
+        int bound = FLOAT_SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            FloatVector x = FloatVector.fromArray(FLOAT_SPECIES, xs, i);
+            FloatVector y = FloatVector.fromArray(FLOAT_SPECIES, ys, i);
+            VectorMask<Float> inside = x.compare(VectorOperators.GT, lowX)
+                    .and(x.compare(VectorOperators.LT, highX))
+                    .and(y.compare(VectorOperators.GT, lowY))
+                    .and(y.compare(VectorOperators.LT, highY));
+            setBits(results, i, inside.toLong());
+        }
+        ScalarBatchKernel.orthogonalRange(lowX, lowY, highX, highY, xs, ys, i, length, results);
+    }
+
+    /**
+     * The float edge tests of {@link ScalarBatchKernel#containsAllGeneral(GeneralRectangleKernel, float[], float[], int, BitSet)},
+     * one lane of points at a time; as in the double version, lanes that are neither certainly inside nor
+     * certainly outside are re-checked with the exact scalar test.
+     */
+    @Override
+    public void containsAllGeneral(GeneralRectangleKernel frame, float[] xs, float[] ys, int length, BitSet results) {
+        results.clear(0, length);
+        int lanes = FLOAT_SPECIES.length();
+        int bound = FLOAT_SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            FloatVector x = FloatVector.fromArray(FLOAT_SPECIES, xs, i);
+            FloatVector y = FloatVector.fromArray(FLOAT_SPECIES, ys, i);
+            VectorMask<Float> inside = FLOAT_SPECIES.maskAll(true);
+            VectorMask<Float> outside = FLOAT_SPECIES.maskAll(false);
+            for (int k = 0; k < 4; k++) {
+                // GeneralRectangleKernel.floatEdgeBound, lane-wise
+                FloatVector termX = x.mul(frame.edgeA[k]);
+                FloatVector termY = y.mul(frame.edgeB[k]);
+                FloatVector det = termX.add(termY).add(frame.edgeC[k]);
+                FloatVector errorBound = termX.abs().add(termY.abs()).add(frame.edgeMagnitude[k])
+                        .mul(GeneralRectangleKernel.FLOAT_ERROR).add(Float.MIN_NORMAL);
+                inside = inside.and(det.compare(VectorOperators.GT, errorBound));
+                outside = outside.or(det.neg().compare(VectorOperators.GT, errorBound));
+            }
+            setBits(results, i, inside.toLong());
+            long uncertain = inside.or(outside).not().toLong();
+            while (uncertain != 0) {
+                int lane = i + Long.numberOfTrailingZeros(uncertain);
+                if (frame.contains(xs[lane], ys[lane])) {
+                    results.set(lane);
+                }
+                uncertain &= uncertain - 1;
+            }
+        }
+        ScalarBatchKernel.generalRange(frame, xs, ys, i, length, results);
+    }
+
+    static void setBits(BitSet results, int base, long bits) {
+        // most points are usually outside, so only visit the set lanes
+        while (bits != 0) {
+            results.set(base + Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+        }
+    }
+}
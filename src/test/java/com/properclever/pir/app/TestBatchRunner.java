@@ -0,0 +1,62 @@
+package com.properclever.pir.app;
+
+import com.properclever.pir.solution.BasicSolution;
+import com.properclever.pir.solution.GeneralSolution;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBatchRunner {
+
+    @Test
+    public void testResultsAreStreamedInInputOrder() throws Exception {
+        String input = """
+                [[-1,-1], [-1,1], [1,1], [1,-1], [-1,-1]]; [0,0]
+                [[1,1], [10,7], [10,1], [1,7]]; [2,6]
+
+                [[0,4], [4,7], [7,3], [3,0]]; [2,5]
+                [[0,0], [3,0], [3,10], [0,10]] [2,10]
+                [[0,0], [3,0], [3,10], [0,10]]; [a,b]
+                """;
+        StringWriter out = new StringWriter();
+        // a tiny window forces the reader to drain results while still submitting
+        BatchRunner.Summary summary = new BatchRunner(GeneralSolution::new, 3, 2).run(new BufferedReader(new StringReader(input)), out);
+
+        List<String> lines = out.toString().lines().toList();
+        assertEquals(5, lines.size());
+        assertEquals("true", lines.get(0));
+        assertEquals("false", lines.get(1));
+        assertEquals("true", lines.get(2));
+        assertTrue(lines.get(3).startsWith("error: "));
+        assertTrue(lines.get(4).startsWith("error: "));
+        assertEquals(5, summary.records());
+        assertEquals(2, summary.inside());
+        assertEquals(1, summary.outside());
+        assertEquals(2, summary.errors());
+    }
+
+    @Test
+    public void testManyRecordsKeepOrder() throws Exception {
+        // alternate inside/outside points so any reordering shows up
+        String input = IntStream.range(0, 5000)
+                .mapToObj(i -> "[[0,0], [0,10], [10,10], [10,0]]; " + (i % 2 == 0 ? "[5,5]" : "[15,5]"))
+                .collect(Collectors.joining("\n"));
+        StringWriter out = new StringWriter();
+        BatchRunner.Summary summary = new BatchRunner(BasicSolution::new, 4).run(new BufferedReader(new StringReader(input)), out);
+
+        List<String> lines = out.toString().lines().toList();
+        assertEquals(5000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i % 2 == 0 ? "true" : "false", lines.get(i), "Out of order at record " + i);
+        }
+        assertEquals(2500, summary.inside());
+        assertTrue(summary.recordsPerSecond() > 0);
+    }
+}
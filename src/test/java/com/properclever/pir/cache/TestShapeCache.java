@@ -0,0 +1,125 @@
+package com.properclever.pir.cache;
+
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.ValidationResult;
+import com.properclever.pir.solution.BasicSolution;
+import com.properclever.pir.solution.GeneralSolution;
+import com.properclever.pir.util.RejectionReason;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestShapeCache {
+    private static final String SQUARE = "[[1,1], [1,3], [3,3], [3,1]]";
+    private static final String BOWTIE = "[[1,1], [3,3], [1,3], [3,1]]";
+
+    @Test
+    public void testHitsReturnTheSameResult() {
+        ShapeCache<OrthogonalRectangle> cache = ShapeCache.orthogonal(10);
+        ValidationResult<OrthogonalRectangle> first = cache.get(SQUARE);
+        assertTrue(first.isValid());
+        assertSame(first, cache.get(SQUARE));
+        assertSame(first, cache.get(SQUARE));
+
+        ShapeCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-12);
+        assertTrue(stats.totalLoadNanos() > 0);
+    }
+
+    @Test
+    public void testRejectionsAreCached() {
+        ShapeCache<OrthogonalRectangle> cache = ShapeCache.orthogonal(10);
+        assertEquals(new ValidationResult.Rejected<>(RejectionReason.NOT_AXIS_ALIGNED), cache.get(BOWTIE));
+        cache.get(BOWTIE);
+        assertEquals(1, cache.stats().misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testUnparseableShapesAreNotCached() {
+        ShapeCache<GeneralRectangle> cache = ShapeCache.general(10);
+        assertThrows(IllegalArgumentException.class, () -> cache.get("[[1,1], [1,3]"));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("[[1,1], [1,3]"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testFrequentShapesSurviveAScan() {
+        ShapeCache<OrthogonalRectangle> cache = ShapeCache.orthogonal(4);
+        for (int i = 0; i < 5; i++) {
+            cache.get(SQUARE);
+        }
+        // a long run of one-off shapes must not push out the popular one while it stays in use
+        for (int i = 0; i < 100; i++) {
+            cache.get("[[0,0], [0,%d], [1,%d], [1,0]]".formatted(i + 1, i + 1));
+            if (i % 10 == 0) {
+                long misses = cache.stats().misses();
+                cache.get(SQUARE);
+                assertEquals(misses, cache.stats().misses());
+            }
+        }
+        assertTrue(cache.size() <= 4);
+    }
+
+    @Test
+    public void testRepeatedNewcomerEvictsAOneOff() {
+        ShapeCache<OrthogonalRectangle> cache = ShapeCache.orthogonal(8);
+        for (int i = 0; i < 8; i++) {
+            cache.get("[[0,0], [0,%d], [1,%d], [1,0]]".formatted(i + 1, i + 1));
+        }
+        assertEquals(8, cache.size());
+        // first sight of the newcomer ties with the residents, so it is not admitted yet
+        cache.get(SQUARE);
+        assertEquals(0, cache.stats().evictions());
+        // the second makes it more popular than the oldest resident
+        cache.get(SQUARE);
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(8, cache.size());
+        long misses = cache.stats().misses();
+        cache.get(SQUARE);
+        assertEquals(misses, cache.stats().misses());
+    }
+
+    @Test
+    public void testSolutionsUseTheCache() {
+        ShapeCache<OrthogonalRectangle> orthogonal = ShapeCache.orthogonal(10);
+        assertTrue(new BasicSolution(SQUARE, "[2,2]", orthogonal).solve());
+        assertFalse(new BasicSolution(SQUARE, "[3,2]", orthogonal).solve());
+        assertFalse(new BasicSolution(BOWTIE, "[2,2]", orthogonal).solve());
+        assertEquals(1, orthogonal.stats().hits());
+
+        ShapeCache<GeneralRectangle> general = ShapeCache.general(10);
+        assertTrue(new GeneralSolution("[[0,4], [4,7], [7,3], [3,0]]", "[2,5]", general).solve());
+        assertTrue(new GeneralSolution("[[0,4], [4,7], [7,3], [3,0]]", "[4,4]", general).solve());
+        assertEquals(1, general.stats().hits());
+        assertThrows(IllegalArgumentException.class, () -> new GeneralSolution(SQUARE, "[2,", general));
+    }
+
+    @Test
+    public void testSketchCountersSaturateUnderContention() throws InterruptedException {
+        // a large cache, so the sample never fills and the table is never halved
+        FrequencySketch sketch = new FrequencySketch(1 << 20);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    sketch.increment(42);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(15, sketch.frequency(42));
+        // a counter that wrapped would have carried into its neighbours
+        for (int hash = 0; hash < 1000; hash++) {
+            if (hash != 42) {
+                assertEquals(0, sketch.frequency(hash), "hash " + hash);
+            }
+        }
+    }
+}
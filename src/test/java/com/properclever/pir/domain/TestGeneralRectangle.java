@@ -2,6 +2,7 @@ package com.properclever.pir.domain;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.BitSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -57,4 +58,42 @@ public class TestGeneralRectangle {
         assertFalse(rectangle.contains(onPerimeter), "Point on perimeter should not be contained.");
         assertFalse(rectangle.contains(outside), "Point outside should not be contained.");
     }
+
+    @Test
+    public void testContainsIgnoresWindingDirection() {
+        // same rotated rectangle, listed anticlockwise and clockwise
+        GeneralRectangle anticlockwise = new GeneralRectangle(List.of(new Point(3, 0), new Point(11, 6), new Point(8, 10), new Point(0, 4)));
+        GeneralRectangle clockwise = new GeneralRectangle(List.of(new Point(0, 4), new Point(8, 10), new Point(11, 6), new Point(3, 0)));
+
+        Point[] probes = {new Point(5, 5), new Point(7, 2), new Point(8, 10), new Point(1.5, 2), new Point(5.5, 5)};
+        for (Point probe : probes) {
+            assertEquals(clockwise.contains(probe), anticlockwise.contains(probe), "Winding changed the answer for " + probe);
+        }
+        assertTrue(clockwise.contains(new Point(5, 5)));
+        assertFalse(clockwise.contains(new Point(1.5, 2)), "Point on an edge should not be contained.");
+    }
+
+    @Test
+    public void testContainsAllMatchesContains() {
+        GeneralRectangle rectangle = new GeneralRectangle(List.of(new Point(0, 4), new Point(4, 7), new Point(7, 3), new Point(3, 0)));
+        // inside, outside, on a corner, inside near the centre, on an edge midpoint
+        double[] xs = {2, 1, 3, 3.5, 5.5};
+        double[] ys = {5, 2, 0, 3.5, 5};
+        // pre-set a bit that should be cleared by the batch call
+        BitSet results = new BitSet(xs.length);
+        results.set(1);
+
+        rectangle.containsAll(xs, ys, results);
+
+        for (int i = 0; i < xs.length; i++) {
+            assertEquals(rectangle.contains(new Point(xs[i], ys[i])), results.get(i), "Mismatch at index " + i);
+        }
+        assertEquals(BitSet.valueOf(new long[]{0b01001}), results);
+    }
+
+    @Test
+    public void testContainsAllRejectsMismatchedArrays() {
+        GeneralRectangle rectangle = new GeneralRectangle(List.of(new Point(0, 4), new Point(4, 7), new Point(7, 3), new Point(3, 0)));
+        assertThrows(IllegalArgumentException.class, () -> rectangle.containsAll(new double[2], new double[3], new BitSet()));
+    }
 }
\ No newline at end of file
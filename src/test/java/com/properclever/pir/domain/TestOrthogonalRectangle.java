@@ -2,6 +2,7 @@ package com.properclever.pir.domain;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.BitSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -56,4 +57,28 @@ public class TestOrthogonalRectangle {
         assertFalse(rectangle.contains(onPerimeter), "Point on perimeter should not be contained.");
         assertFalse(rectangle.contains(outside), "Point outside should not be contained.");
     }
+
+    @Test
+    public void testContainsAllMatchesContains() {
+        OrthogonalRectangle rectangle = new OrthogonalRectangle(List.of(new Point(0, 0), new Point(4, 0), new Point(4, 3), new Point(0, 3)));
+        // inside, on the left edge, outside, inside near a corner, on a corner
+        double[] xs = {2, 0, -1, 3.5, 4};
+        double[] ys = {1.5, 1, 1, 2.9, 3};
+        // pre-set a bit that should be cleared by the batch call
+        BitSet results = new BitSet(xs.length);
+        results.set(1);
+
+        rectangle.containsAll(xs, ys, results);
+
+        for (int i = 0; i < xs.length; i++) {
+            assertEquals(rectangle.contains(new Point(xs[i], ys[i])), results.get(i), "Mismatch at index " + i);
+        }
+        assertEquals(BitSet.valueOf(new long[]{0b01001}), results);
+    }
+
+    @Test
+    public void testContainsAllRejectsMismatchedArrays() {
+        OrthogonalRectangle rectangle = new OrthogonalRectangle(List.of(new Point(0, 0), new Point(4, 0), new Point(4, 3), new Point(0, 3)));
+        assertThrows(IllegalArgumentException.class, () -> rectangle.containsAll(new double[2], new double[3], new BitSet()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.properclever.pir.domain;
+
+import com.properclever.pir.util.PointStringParser;
+import com.properclever.pir.util.RejectionReason;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPointBuffer {
+
+    @Test
+    public void testGrowAndAccess() {
+        PointBuffer buffer = PointBuffer.allocate(1);
+        for (int i = 0; i < 20; i++) {
+            buffer.add(i, -i);
+        }
+        assertEquals(20, buffer.size());
+        assertEquals(new Point(7, -7), buffer.get(7));
+        assertTrue(buffer.xArray().length >= 20);
+        assertSame(buffer.xArray(), buffer.xArray());
+        assertEquals(-19, buffer.yArray()[19]);
+        buffer.set(0, 5, 5);
+        buffer.removeLast();
+        assertEquals(new Point(5, 5), buffer.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.x(19));
+        assertEquals(new BoundingBox(new Point(1, -18), new Point(18, 5)), buffer.getBoundingBox());
+    }
+
+    @Test
+    public void testPointEqualitySemantics() {
+        PointBuffer buffer = PointBuffer.of(List.of(new Point(0.0, 1), new Point(-0.0, 1), new Point(Double.NaN, 1), new Point(Double.NaN, 1)));
+        // same answers as Point.equals, which compares the doubles with Double.compare
+        assertEquals(buffer.get(0).equals(buffer.get(1)), buffer.samePoint(0, 1));
+        assertEquals(buffer.get(2).equals(buffer.get(3)), buffer.samePoint(2, 3));
+        assertFalse(buffer.samePoint(0, 1));
+        assertTrue(buffer.samePoint(2, 3));
+    }
+
+    @Test
+    public void testNative() {
+        try (Arena arena = Arena.ofConfined()) {
+            PointBuffer buffer = PointBuffer.allocateNative(arena, 2);
+            PointStringParser.parsePointBuffer("[[1,1], [1,3], [3,3], [5,3], [5,2], [5,1]]", buffer);
+            assertFalse(buffer.hasArray());
+            assertThrows(UnsupportedOperationException.class, buffer::xArray);
+            assertEquals(List.of(new Point(1, 1), new Point(1, 3), new Point(3, 3), new Point(5, 3), new Point(5, 2), new Point(5, 1)),
+                    buffer.toList());
+
+            OrthogonalRectangle rectangle = Shapes.tryOrthogonal(buffer).toOptional().orElseThrow();
+            assertEquals(new Point(5, 3), rectangle.topRight);
+
+            PointBuffer queries = PointBuffer.allocateNative(arena, 4);
+            PointStringParser.parsePointBuffer("[[2,2], [1,2], [4.9,2.9], [6,2]]", queries);
+            BitSet inside = new BitSet();
+            rectangle.containsAll(queries, inside);
+            assertEquals("{0, 2}", inside.toString());
+        }
+    }
+
+    @Test
+    public void testBufferAndListValidationAgree() {
+        String[] shapes = {
+                "[[1,1], [1,3], [3,3], [3,1]]",
+                "[[2,1], [1,1], [1,3], [3,3], [3,1]]",
+                "[[0,0], [4,0], [2,0], [2,2], [0,2]]",
+                "[[1,1], [3,3], [1,3], [3,1]]",
+                "[[0,0], [0,0], [1,0], [1,1]]",
+                "[[0,0], [1,1], [2,2]]",
+                "[[0,4], [4,7], [7,3], [3,0]]",
+                "[[0,0], [2,0], [2,1], [1,1], [1,2], [0,2]]",
+                "[[3.5, 1.2], [1.9, 3.8], [4.0, 7.9], [8.1, 6.1], [7.4, 2.5]]",
+        };
+        for (String shape : shapes) {
+            List<Point> list = PointStringParser.parsePointArray(shape);
+            PointBuffer buffer = PointStringParser.parsePointBuffer(shape);
+            assertEquals(list, buffer.toList());
+            assertEquals(outcome(Shapes.tryOrthogonal(list)), outcome(Shapes.tryOrthogonal(buffer)), shape);
+            assertEquals(outcome(Shapes.tryGeneral(list)), outcome(Shapes.tryGeneral(buffer)), shape);
+        }
+        assertEquals(new ValidationResult.Rejected<>(RejectionReason.NULL_OR_EMPTY), Shapes.tryGeneral(PointBuffer.allocate(0)));
+    }
+
+    private static String outcome(ValidationResult<?> result) {
+        return switch (result) {
+            case ValidationResult.Valid<?> valid -> valid.shape().getCoordinates().toString();
+            case ValidationResult.Rejected<?>(RejectionReason reason) -> reason.name();
+        };
+    }
+
+    @Test
+    public void testHeapContainsAll() {
+        GeneralRectangle rectangle = Shapes.tryGeneral(PointStringParser.parsePointBuffer("[[0,4], [4,7], [7,3], [3,0]]"))
+                .toOptional().orElseThrow();
+        PointBuffer queries = PointStringParser.parsePointBuffer("[[2,5], [0,4], [4,4], [8,8], [3.5,3.5]]");
+        BitSet inside = new BitSet(queries.size());
+        rectangle.containsAll(queries, inside);
+        assertEquals("{0, 2, 4}", inside.toString());
+
+        // spare capacity past size() is neither tested nor reported
+        PointBuffer spare = PointBuffer.allocate(64);
+        for (int i = 0; i < queries.size(); i++) {
+            spare.add(queries.x(i), queries.y(i));
+        }
+        assertTrue(spare.xArray().length > spare.size());
+        BitSet results = new BitSet();
+        results.set(40);
+        rectangle.containsAll(spare, results);
+        assertEquals("{0, 2, 4, 40}", results.toString());
+        assertThrows(IllegalArgumentException.class, () -> rectangle.containsAll(new double[4], new double[4], 5, new BitSet()));
+    }
+}
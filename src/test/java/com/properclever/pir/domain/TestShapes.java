@@ -0,0 +1,55 @@
+package com.properclever.pir.domain;
+
+import com.properclever.pir.util.PointStringParser;
+import com.properclever.pir.util.RejectionReason;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestShapes {
+
+    private static List<Point> points(String input) {
+        return PointStringParser.parsePointArray(input);
+    }
+
+    @Test
+    public void testTryOrthogonal() {
+        ValidationResult<OrthogonalRectangle> valid = Shapes.tryOrthogonal(points("[[1,1], [1,3], [3,3], [5,3], [5,2], [5,1]]"));
+        assertTrue(valid.isValid());
+        OrthogonalRectangle rectangle = valid.toOptional().orElseThrow();
+        assertEquals(new Point(1, 1), rectangle.bottomLeft);
+        assertEquals(new Point(5, 3), rectangle.topRight);
+        assertTrue(rectangle.contains(4, 2));
+
+        ValidationResult<OrthogonalRectangle> rejected = Shapes.tryOrthogonal(points("[[0,0], [4,0], [2,0], [2,2], [0,2]]"));
+        assertFalse(rejected.isValid());
+        assertEquals(new ValidationResult.Rejected<>(RejectionReason.BACKTRACK), rejected);
+        assertTrue(rejected.toOptional().isEmpty());
+        assertEquals(RejectionReason.NULL_OR_EMPTY,
+                ((ValidationResult.Rejected<OrthogonalRectangle>) Shapes.tryOrthogonal(List.of())).reason());
+    }
+
+    @Test
+    public void testTryGeneral() {
+        ValidationResult<GeneralRectangle> valid = Shapes.tryGeneral(points("[[0,4], [4,7], [7,3], [3,0]]"));
+        GeneralRectangle rectangle = valid.orElseThrow(reason -> new IllegalStateException(reason.name()));
+        assertEquals(List.of(new Point(0, 4), new Point(4, 7), new Point(7, 3), new Point(3, 0), new Point(0, 4)),
+                rectangle.getCoordinates());
+        assertTrue(rectangle.contains(2, 5));
+
+        assertEquals(new ValidationResult.Rejected<>(RejectionReason.NOT_RIGHT_ANGLE),
+                Shapes.tryGeneral(points("[[3.5, 1.2], [1.9, 3.8], [4.0, 7.9], [8.1, 6.1], [7.4, 2.5]]")));
+        assertEquals(new ValidationResult.Rejected<>(RejectionReason.WRONG_VERTEX_COUNT),
+                Shapes.tryGeneral(points("[[0,0], [2,0], [2,1], [1,1], [1,2], [0,2]]")));
+    }
+
+    @Test
+    public void testConstructorsStillThrow() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new GeneralRectangle(points("[[0,0], [0,0], [1,0], [1,1]]")));
+        assertEquals("Points do not form a valid general rectangle", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new OrthogonalRectangle(points("[[0,0], [1,1], [2,2]]")));
+    }
+}
@@ -0,0 +1,77 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPlaneSweepJoin {
+
+    private static PointBuffer randomPoints(Random random, PointBuffer points, int count) {
+        for (int i = 0; i < count; i++) {
+            // integer probes land on edges and corners, fractional ones in between
+            double x = i % 2 == 0 ? random.nextInt(1040) - 20 : random.nextDouble() * 1040 - 20;
+            double y = i % 2 == 0 ? random.nextInt(1040) - 20 : random.nextDouble() * 1040 - 20;
+            points.add(x, y);
+        }
+        return points;
+    }
+
+    // "point shape" for every pair, sorted
+    private static Set<String> bruteForce(List<Shape> shapes, PointBuffer points) {
+        Set<String> pairs = new TreeSet<>();
+        for (int i = 0; i < points.size(); i++) {
+            for (int id : TestStrRTree.bruteForce(shapes, points.x(i), points.y(i))) {
+                pairs.add(i + " " + id);
+            }
+        }
+        return pairs;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(19);
+        List<Shape> shapes = TestStrRTree.randomRectangles(random, 2000);
+        PlaneSweepJoin<Shape> join = new PlaneSweepJoin<>(shapes);
+        PointBuffer points = randomPoints(random, PointBuffer.allocate(0), 5000);
+        points.add(Double.NaN, 500);
+
+        List<String> found = new ArrayList<>();
+        join.join(points, (point, shape) -> found.add(point + " " + shape));
+        Set<String> expected = bruteForce(shapes, points);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), found.size(), "no pair twice");
+        assertEquals(expected, new TreeSet<>(found));
+
+        List<String> streamed = join.stream(points).map(m -> m.pointIndex() + " " + m.shapeIndex()).toList();
+        assertEquals(found, streamed);
+    }
+
+    @Test
+    public void testOffHeapPointsAndLazyStream() {
+        Random random = new Random(37);
+        List<Shape> shapes = TestStrRTree.randomRectangles(random, 300);
+        PlaneSweepJoin<Shape> join = new PlaneSweepJoin<>(shapes);
+        try (Arena arena = Arena.ofConfined()) {
+            PointBuffer points = randomPoints(random, PointBuffer.allocateNative(arena, 4), 3000);
+            Set<String> found = new TreeSet<>();
+            join.join(points, (point, shape) -> found.add(point + " " + shape));
+            assertEquals(bruteForce(shapes, points), found);
+            // a short stream stops the sweep early
+            assertEquals(3, join.stream(points).limit(3).count());
+        }
+    }
+
+    @Test
+    public void testRejectsEmptyShapes() {
+        assertThrows(IllegalArgumentException.class, () -> new PlaneSweepJoin<>(List.of()));
+    }
+}
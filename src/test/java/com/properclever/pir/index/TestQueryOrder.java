@@ -0,0 +1,78 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestQueryOrder {
+
+    @Test
+    public void testCurveKeys() {
+        // the first cells of each curve
+        assertEquals(List.of(0L, 1L, 2L, 3L), List.of(QueryOrder.mortonKey(0, 0), QueryOrder.mortonKey(1, 0),
+                QueryOrder.mortonKey(0, 1), QueryOrder.mortonKey(1, 1)));
+        assertEquals(0xFFFFFFFFL, QueryOrder.mortonKey(0xFFFF, 0xFFFF));
+
+        // the Hilbert curve visits every cell of a 2^k x 2^k corner once, stepping to an adjacent cell each time
+        int side = 64;
+        int[][] cells = new int[side * side][];
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                long key = QueryOrder.hilbertKey(x, y);
+                assertTrue(key < cells.length, x + " " + y);
+                assertNull(cells[(int) key]);
+                cells[(int) key] = new int[]{x, y};
+            }
+        }
+        for (int k = 1; k < cells.length; k++) {
+            assertEquals(1, Math.abs(cells[k][0] - cells[k - 1][0]) + Math.abs(cells[k][1] - cells[k - 1][1]), "step " + k);
+        }
+    }
+
+    @Test
+    public void testSortIsAPermutation() {
+        Random random = new Random(3);
+        PointBuffer points = PointBuffer.allocate(0);
+        for (int i = 0; i < 1000; i++) {
+            points.add(random.nextDouble() * 120 - 10, random.nextDouble() * 120 - 10);
+        }
+        points.add(Double.NaN, 5);
+        BoundingBox extent = new BoundingBox(new Point(0, 0), new Point(100, 100));
+        for (QueryOrder order : QueryOrder.values()) {
+            int[] sorted = order.sort(points, extent);
+            int[] check = sorted.clone();
+            Arrays.sort(check);
+            for (int i = 0; i < check.length; i++) {
+                assertEquals(i, check[i], order.name());
+            }
+        }
+    }
+
+    @Test
+    public void testCountsAreScatteredBack() {
+        Random random = new Random(8);
+        List<Shape> shapes = TestStrRTree.randomRectangles(random, 1000);
+        List<SpatialIndex<Shape>> indexes = List.of(new StrRTree<>(shapes), new UniformGridIndex<>(shapes));
+        PointBuffer points = PointBuffer.allocate(0);
+        for (int i = 0; i < 3000; i++) {
+            points.add(random.nextInt(1040) - 20, random.nextDouble() * 1040 - 20);
+        }
+        int[] expected = new int[points.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = TestStrRTree.bruteForce(shapes, points.x(i), points.y(i)).size();
+        }
+        for (SpatialIndex<Shape> index : indexes) {
+            for (QueryOrder order : QueryOrder.values()) {
+                assertArrayEquals(expected, index.countContaining(points, order), order.name());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestStrRTree {
+
+    static List<Shape> randomRectangles(Random random, int count) {
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(1000);
+            int y = random.nextInt(1000);
+            int p = 1 + random.nextInt(30);
+            int q = random.nextInt(30);
+            if (i % 2 == 0) {
+                shapes.add(new OrthogonalRectangle(List.of(new Point(x, y), new Point(x + p, y), new Point(x + p, y + q + 1), new Point(x, y + q + 1))));
+            } else {
+                // rotated by the integer vector (p, q), so the corners stay exact
+                shapes.add(new GeneralRectangle(List.of(new Point(x, y), new Point(x + p, y + q), new Point(x + p - q, y + q + p), new Point(x - q, y + p))));
+            }
+        }
+        return shapes;
+    }
+
+    static Set<Integer> bruteForce(List<Shape> shapes, double x, double y) {
+        Set<Integer> ids = new TreeSet<>();
+        for (int id = 0; id < shapes.size(); id++) {
+            if (shapes.get(id).contains(x, y)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(42);
+        List<Shape> shapes = randomRectangles(random, 2000);
+        StrRTree<Shape> tree = new StrRTree<>(shapes, 8);
+        assertEquals(shapes.size(), tree.size());
+        assertTrue(tree.height() > 1);
+
+        for (int i = 0; i < 2000; i++) {
+            // mix integer probes (which land on edges and corners) with fractional ones
+            double x = i % 2 == 0 ? random.nextInt(1040) - 20 : random.nextDouble() * 1040 - 20;
+            double y = i % 2 == 0 ? random.nextInt(1040) - 20 : random.nextDouble() * 1040 - 20;
+            Set<Integer> found = new TreeSet<>();
+            tree.forEachContaining(x, y, found::add);
+            assertEquals(bruteForce(shapes, x, y), found, "Mismatch at [" + x + "," + y + "]");
+        }
+    }
+
+    @Test
+    public void testQueryReturnsShapes() {
+        OrthogonalRectangle outer = new OrthogonalRectangle(List.of(new Point(0, 0), new Point(10, 0), new Point(10, 10), new Point(0, 10)));
+        OrthogonalRectangle inner = new OrthogonalRectangle(List.of(new Point(2, 2), new Point(4, 2), new Point(4, 4), new Point(2, 4)));
+        GeneralRectangle diamond = new GeneralRectangle(List.of(new Point(0, 4), new Point(4, 7), new Point(7, 3), new Point(3, 0)));
+        StrRTree<Shape> tree = new StrRTree<>(List.of(outer, inner, diamond));
+
+        List<Shape> found = tree.query(new Point(3, 3));
+        assertEquals(3, found.size());
+        assertTrue(found.containsAll(List.of(outer, inner, diamond)));
+
+        // on the edge of the inner square: only the other two contain it strictly
+        assertEquals(2, tree.query(new Point(4, 3)).size());
+        assertTrue(tree.query(new Point(10, 5)).isEmpty(), "Point on the outer edge should not be contained.");
+
+        BoundingBox bbox = tree.getBoundingBox();
+        assertEquals(new Point(0, 0), bbox.minPoint());
+        assertEquals(new Point(10, 10), bbox.maxPoint());
+    }
+
+    @Test
+    public void testRejectsEmptyInput() {
+        assertThrows(IllegalArgumentException.class, () -> new StrRTree<>(List.of()));
+    }
+}
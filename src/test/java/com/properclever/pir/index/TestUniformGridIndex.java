@@ -0,0 +1,67 @@
+package com.properclever.pir.index;
+
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestUniformGridIndex {
+
+    @Test
+    public void testMatchesBruteForceAndTree() {
+        Random random = new Random(7);
+        List<Shape> shapes = TestStrRTree.randomRectangles(random, 2000);
+        UniformGridIndex<Shape> grid = new UniformGridIndex<>(shapes);
+        StrRTree<Shape> tree = new StrRTree<>(shapes);
+        assertEquals(tree.getBoundingBox(), grid.getBoundingBox());
+
+        for (int i = 0; i < 2000; i++) {
+            double x = i % 2 == 0 ? random.nextInt(1040) - 20 : random.nextDouble() * 1040 - 20;
+            double y = i % 2 == 0 ? random.nextInt(1040) - 20 : random.nextDouble() * 1040 - 20;
+            Set<Integer> fromGrid = new TreeSet<>();
+            grid.forEachContaining(x, y, fromGrid::add);
+            Set<Integer> fromTree = new TreeSet<>();
+            tree.forEachContaining(x, y, fromTree::add);
+            assertEquals(TestStrRTree.bruteForce(shapes, x, y), fromGrid, "Mismatch at [" + x + "," + y + "]");
+            assertEquals(fromTree, fromGrid);
+        }
+    }
+
+    @Test
+    public void testCellCountStaysLinearWithOutliers() {
+        // many unit squares plus one huge outlier stretching the extent
+        Random random = new Random(3);
+        List<OrthogonalRectangle> shapes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int x = random.nextInt(100);
+            int y = random.nextInt(100);
+            shapes.add(new OrthogonalRectangle(List.of(new Point(x, y), new Point(x + 1, y), new Point(x + 1, y + 1), new Point(x, y + 1))));
+        }
+        shapes.add(new OrthogonalRectangle(List.of(new Point(0, 0), new Point(1_000_000, 0), new Point(1_000_000, 1_000_000), new Point(0, 1_000_000))));
+
+        UniformGridIndex<OrthogonalRectangle> grid = new UniformGridIndex<>(shapes);
+        assertTrue((long) grid.getColumns() * grid.getRows() <= (long) UniformGridIndex.MAX_CELLS_PER_SHAPE * shapes.size());
+        List<OrthogonalRectangle> found = grid.query(new Point(500_000.5, 500_000.5));
+        assertEquals(List.of(shapes.getLast()), found);
+    }
+
+    @Test
+    public void testExplicitCellSize() {
+        List<Shape> shapes = TestStrRTree.randomRectangles(new Random(11), 200);
+        UniformGridIndex<Shape> grid = new UniformGridIndex<>(shapes, 50, 50);
+        assertTrue(grid.averageCellOccupancy() > 0);
+        for (int x = 0; x < 1000; x += 7) {
+            Set<Integer> found = new TreeSet<>();
+            grid.forEachContaining(x + 0.5, 500.5, found::add);
+            assertEquals(TestStrRTree.bruteForce(shapes, x + 0.5, 500.5), found);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.properclever.pir.io;
+
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.Point;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPointFile {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteThenRead() throws IOException {
+        // enough points to cross several writer buffer flushes, and reader chunks with a partial last one
+        Random random = new Random(5);
+        int n = 20_000;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = random.nextDouble() * 10;
+            ys[i] = random.nextDouble() * 10;
+        }
+        Path file = tempDir.resolve("points.pir");
+        try (PointFileWriter writer = new PointFileWriter(file)) {
+            writer.addAll(xs, ys);
+        }
+        assertEquals(PointFile.fileSize(n), Files.size(file));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "Spool file should be removed.");
+        }
+
+        GeneralRectangle rectangle = new GeneralRectangle(List.of(new Point(0, 4), new Point(4, 7), new Point(7, 3), new Point(3, 0)));
+        BitSet expected = new BitSet(n);
+        rectangle.containsAll(xs, ys, expected);
+
+        try (PointFileReader reader = new PointFileReader(file)) {
+            assertEquals(n, reader.size());
+            assertEquals(xs[0], reader.x(0));
+            assertEquals(ys[n - 1], reader.y(n - 1));
+            // x(n) would otherwise land on y(0) in the mapping
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.x(n));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.y(-1));
+            BitSet actual = new BitSet(n);
+            reader.containsAll(rectangle, actual);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testConvertFromText() throws IOException {
+        Path text = tempDir.resolve("points.txt");
+        Files.writeString(text, """
+                [1,2]
+
+                [[3,4], [5.5, -6]]
+                [ 7 , 8 ]
+                """);
+        Path binary = tempDir.resolve("points.pir");
+        assertEquals(4, PointFileConverter.convert(text, binary));
+        try (PointFileReader reader = new PointFileReader(binary)) {
+            assertEquals(4, reader.size());
+            assertEquals(1, reader.x(0));
+            assertEquals(-6, reader.y(2));
+            assertEquals(7, reader.x(3));
+        }
+    }
+
+    @Test
+    public void testConvertReportsBadLine() throws IOException {
+        Path text = tempDir.resolve("points.txt");
+        Files.writeString(text, "[1,2]\n[a,b]\n");
+        Path binary = tempDir.resolve("points.pir");
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> PointFileConverter.convert(text, binary));
+        assertTrue(exception.getMessage().startsWith("Line 2:"));
+        // no truncated output, and no temporary files left over
+        assertFalse(Files.exists(binary));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(text), files.toList());
+        }
+
+        // an existing output survives a failed conversion
+        Files.writeString(text, "[1,2]\n");
+        assertEquals(1, PointFileConverter.convert(text, binary));
+        Files.writeString(text, "[3,4]\n[a,b]\n");
+        assertThrows(IllegalArgumentException.class, () -> PointFileConverter.convert(text, binary));
+        try (PointFileReader reader = new PointFileReader(binary)) {
+            assertEquals(1, reader.size());
+            assertEquals(1, reader.x(0));
+        }
+    }
+
+    @Test
+    public void testRejectsCorruptFile() throws IOException {
+        Path file = tempDir.resolve("bogus.pir");
+        Files.write(file, new byte[32]);
+        assertThrows(IOException.class, () -> new PointFileReader(file));
+    }
+}
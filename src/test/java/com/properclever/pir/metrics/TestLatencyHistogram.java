@@ -0,0 +1,36 @@
+package com.properclever.pir.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLatencyHistogram {
+
+    @Test
+    public void testBucketsCoverTheRangeContiguously() {
+        for (int index = 0; index < 959; index++) {
+            long lowest = LatencyHistogram.lowestValue(index);
+            assertEquals(index, LatencyHistogram.index(lowest));
+            assertEquals(index, LatencyHistogram.index(LatencyHistogram.lowestValue(index + 1) - 1));
+        }
+        assertEquals(959, LatencyHistogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentilesWithinOneSixteenth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000.5, histogram.getMeanNanos(), 1e-6);
+        assertEquals(100_000, histogram.getMaxNanos());
+        assertEquals(50_000, histogram.getValueAtPercentile(50), 50_000 / 16.0);
+        assertEquals(99_000, histogram.getValueAtPercentile(99), 99_000 / 16.0);
+        assertEquals(100_000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,111 @@
+package com.properclever.pir.metrics;
+
+import com.properclever.pir.solution.BasicSolution;
+import com.properclever.pir.solution.GeneralSolution;
+import com.properclever.pir.util.Diagnostics;
+import com.properclever.pir.util.DiagnosticsSink;
+import com.properclever.pir.util.RejectionReason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestMetrics {
+
+    @AfterEach
+    public void disable() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void testNothingIsRecordedWhenDisabled() {
+        Metrics.reset();
+        assertTrue(new BasicSolution("[[1,1], [1,3], [3,3], [3,1]]", "[2,2]").solve());
+        assertEquals(0, Metrics.stage(Stage.PARSE).getCount());
+        assertEquals(0, Metrics.solution("BasicSolution").getCount());
+        assertSame(DiagnosticsSink.NONE, Diagnostics.sink());
+    }
+
+    @Test
+    public void testStagesSolutionsAndRejections() {
+        Metrics.setEnabled(true);
+        long rejectedBefore = Metrics.getRejected(RejectionReason.NOT_AXIS_ALIGNED);
+        assertTrue(new BasicSolution("[[1,1], [1,3], [3,3], [3,1]]", "[2,2]").solve());
+        assertFalse(new BasicSolution("[[1,1], [2,7], [10,7], [9,1]]", "[8,2]").solve());
+        assertTrue(new GeneralSolution("[[0,4], [4,7], [7,3], [3,0]]", "[2,5]").solve());
+
+        // one shape and one point per solution
+        assertEquals(6, Metrics.stage(Stage.PARSE).getCount());
+        assertEquals(2, Metrics.stage(Stage.VALIDATE_ORTHOGONAL).getCount());
+        assertEquals(1, Metrics.stage(Stage.COLLAPSE_EDGES).getCount());
+        assertEquals(1, Metrics.stage(Stage.EXTRACT_CORNERS).getCount());
+        assertEquals(2, Metrics.stage(Stage.CONTAINS).getCount());
+        assertEquals(2, Metrics.solution("BasicSolution").getCount());
+        assertEquals(1, Metrics.solution("GeneralSolution").getCount());
+        // the same stages, split by the solution they were timed for
+        assertEquals(4, Metrics.stage(Stage.PARSE, "BasicSolution").getCount());
+        assertEquals(2, Metrics.stage(Stage.PARSE, "GeneralSolution").getCount());
+        assertEquals(2, Metrics.stage(Stage.VALIDATE_ORTHOGONAL, "BasicSolution").getCount());
+        assertEquals(0, Metrics.stage(Stage.VALIDATE_ORTHOGONAL, "GeneralSolution").getCount());
+        assertEquals(1, Metrics.stage(Stage.COLLAPSE_EDGES, "GeneralSolution").getCount());
+        assertEquals(0, Metrics.stage(Stage.CONTAINS, "NoSuchSolution").getCount());
+        assertEquals(rejectedBefore + 1, Metrics.getRejected(RejectionReason.NOT_AXIS_ALIGNED));
+
+        String dump = Metrics.dump();
+        assertTrue(dump.contains("stage parse"), dump);
+        assertTrue(dump.contains("solve BasicSolution"), dump);
+        assertTrue(dump.contains("  stage collapse_edges"), dump);
+        assertTrue(dump.contains("1 inside, 1 outside"), dump);
+        assertTrue(dump.contains("rejected not_axis_aligned"), dump);
+    }
+
+    @Test
+    public void testReenablingBehindAnotherSinkCountsOnce() {
+        // a sink installed after metrics were enabled, passing everything on to the one it replaced
+        DiagnosticsSink previous = Diagnostics.sink();
+        Metrics.setEnabled(true);
+        DiagnosticsSink enabledSink = Diagnostics.sink();
+        Diagnostics.setSink(new DiagnosticsSink() {
+            @Override
+            public void rejected(RejectionReason reason) {
+                enabledSink.rejected(reason);
+            }
+
+            @Override
+            public void accepted() {
+                enabledSink.accepted();
+            }
+        });
+        try {
+            Metrics.setEnabled(false);
+            Metrics.setEnabled(true);
+            long before = Metrics.getRejected(RejectionReason.NOT_AXIS_ALIGNED);
+            assertFalse(new BasicSolution("[[1,1], [2,7], [10,7], [9,1]]", "[8,2]").solve());
+            assertEquals(before + 1, Metrics.getRejected(RejectionReason.NOT_AXIS_ALIGNED));
+        } finally {
+            Metrics.setEnabled(false);
+            Diagnostics.setSink(previous);
+        }
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        Metrics.registerMBean();
+        Metrics.registerMBean();
+        ObjectName name = new ObjectName("com.properclever.pir:type=Metrics");
+        var server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(false, server.getAttribute(name, "Enabled"));
+        server.setAttribute(name, new Attribute("Enabled", true));
+        assertTrue(Metrics.isEnabled());
+        new BasicSolution("[[1,1], [1,3], [3,3], [3,1]]", "[2,2]").solve();
+        assertTrue(((String) server.invoke(name, "dump", null, null)).contains("solve BasicSolution"));
+        var split = (TabularData) server.getAttribute(name, "SolutionStageCounts");
+        assertNotNull(split.get(new Object[]{"BasicSolution.PARSE"}));
+    }
+}
@@ -0,0 +1,90 @@
+package com.properclever.pir.metrics;
+
+import com.properclever.pir.solution.BasicSolution;
+import com.properclever.pir.solution.GeneralSolution;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPipelineEvents {
+
+    @TempDir
+    Path tempDir;
+
+    private List<RecordedEvent> record(boolean withQueries, Runnable work) throws Exception {
+        Path file = tempDir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("Parse", "Validate", "Collapse")) {
+                recording.enable("com.properclever.pir." + name).withoutThreshold();
+            }
+            if (withQueries) {
+                recording.enable("com.properclever.pir.Query").withoutThreshold();
+            }
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals("com.properclever.pir." + name)).toList();
+    }
+
+    @Test
+    public void testValidationEvents() throws Exception {
+        List<RecordedEvent> events = record(false, () -> {
+            new BasicSolution("[[1,1], [1,3], [3,3], [5,3], [5,2], [5,1]]", "[4,2]").solve();
+            new BasicSolution("[[1,1], [2,7], [10,7], [9,1]]", "[8,2]").solve();
+            new GeneralSolution("[[0,4], [4,7], [7,3], [3,0]]", "[2,5]").solve();
+        });
+
+        List<RecordedEvent> parse = named(events, "Parse");
+        assertEquals(6, parse.size());
+        assertEquals(6, parse.getFirst().getInt("vertexCount"));
+        assertEquals("OK", parse.getFirst().getString("outcome"));
+
+        List<RecordedEvent> validate = named(events, "Validate");
+        assertEquals(2, validate.size());
+        assertEquals("orthogonal", validate.get(0).getString("solutionType"));
+        assertEquals("ACCEPTED", validate.get(0).getString("outcome"));
+        assertEquals("NOT_AXIS_ALIGNED", validate.get(1).getString("outcome"));
+        assertEquals(4, validate.get(1).getInt("vertexCount"));
+
+        List<RecordedEvent> collapse = named(events, "Collapse");
+        assertEquals(1, collapse.size());
+        assertEquals("general", collapse.getFirst().getString("solutionType"));
+
+        // queries are off unless explicitly enabled
+        assertTrue(named(events, "Query").isEmpty());
+    }
+
+    @Test
+    public void testQueryEventsWhenEnabled() throws Exception {
+        List<RecordedEvent> events = record(true, () -> {
+            new BasicSolution("[[1,1], [1,3], [3,3], [3,1]]", "[2,2]").solve();
+            new GeneralSolution("[[0,4], [4,7], [7,3], [3,0]]", "[9,9]").solve();
+        });
+        List<RecordedEvent> queries = named(events, "Query");
+        assertEquals(2, queries.size());
+        assertEquals("INSIDE", queries.get(0).getString("outcome"));
+        assertEquals("orthogonal", queries.get(0).getString("solutionType"));
+        assertEquals("OUTSIDE", queries.get(1).getString("outcome"));
+        assertEquals("general", queries.get(1).getString("solutionType"));
+    }
+
+    @Test
+    public void testParseErrors() throws Exception {
+        List<RecordedEvent> events = record(false, () ->
+                assertThrows(IllegalArgumentException.class, () -> new BasicSolution("[[1,1], [1,3]", "[2,2]")));
+        assertEquals("ERROR", named(events, "Parse").getFirst().getString("outcome"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.properclever.pir.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSolutionServer {
+
+    private SolutionServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = SolutionServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+        client.close();
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    @Test
+    public void testSolve() throws Exception {
+        assertEquals("true", post("/solve/basic", "[[1,1], [1,3], [3,3], [3,1]]; [2,2]").body());
+        assertEquals("false", post("/solve/basic", "[[1,1], [1,3], [3,3], [3,1]]; [3,2]").body());
+        assertEquals("true", post("/solve/general", "[[0,4], [4,7], [7,3], [3,0]]; [2,5]").body());
+
+        HttpResponse<String> malformed = post("/solve/general", "[[0,4], [4,7]; [2,5]");
+        assertEquals(400, malformed.statusCode());
+        assertTrue(malformed.body().startsWith("error: "));
+        assertEquals(404, post("/solve/other", "[[0,4], [4,7], [7,3], [3,0]]; [2,5]").statusCode());
+        assertEquals(5, server.getSolveStats().getCount());
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        HttpResponse<String> response = post("/batch/general", "[[0,4], [4,7], [7,3], [3,0]]\n[[2,5], [0,4], [4,4], [8,8], [3.5,3.5]]");
+        assertEquals(200, response.statusCode());
+        assertEquals("10101", response.body());
+
+        HttpResponse<String> rejected = post("/batch/basic", "[[1,1], [3,3], [1,3], [3,1]]\n[[2,2], [2,2]]");
+        assertEquals("00", rejected.body());
+        assertEquals("NOT_AXIS_ALIGNED", rejected.headers().firstValue("X-Shape-Rejected").orElseThrow());
+        assertEquals(400, post("/batch/basic", "[[1,1], [1,3], [3,3], [3,1]]").statusCode());
+    }
+
+    @Test
+    public void testSizeLimitAndMethods() throws Exception {
+        String huge = "[[1,1], [1,3], [3,3], [3,1]]\n[" + "[2,2], ".repeat(200) + "[2,2]]";
+        assertEquals(413, post("/batch/basic", huge).statusCode());
+        HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri("/solve/basic")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, get.statusCode());
+        // the server is still healthy afterwards
+        assertEquals("true", post("/solve/basic", "[[1,1], [1,3], [3,3], [3,1]]; [2,2]").body());
+    }
+
+    @Test
+    public void testLargestLimit() throws Exception {
+        // the limit plus one must not overflow
+        try (SolutionServer unlimited = SolutionServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Integer.MAX_VALUE)) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + unlimited.getPort() + "/solve/basic"))
+                    .POST(HttpRequest.BodyPublishers.ofString("[[1,1], [1,3], [3,3], [3,1]]; [2,2]")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertEquals("true", response.body());
+        }
+    }
+
+    @Test
+    public void testStatsAndShapeReuse() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            post("/solve/basic", "[[1,1], [1,3], [3,3], [3,1]]; [2,2]");
+        }
+        post("/batch/basic", "[[1,1], [1,3], [3,3], [3,1]]\n[[2,2]]");
+        String stats = client.send(HttpRequest.newBuilder(uri("/stats")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        assertTrue(stats.contains("solve: 5 samples"), stats);
+        assertTrue(stats.contains("batch: 1 samples"), stats);
+        // the shape was validated once and then served from the cache
+        assertTrue(stats.contains("basic: Shape cache: 5 hits, 1 misses"), stats);
+    }
+}
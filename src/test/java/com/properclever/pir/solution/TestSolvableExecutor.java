@@ -0,0 +1,85 @@
+package com.properclever.pir.solution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSolvableExecutor {
+
+    private static Stream<Solvable<Boolean>> alternatingJobs(int count) {
+        // alternate inside/outside points so any reordering shows up
+        return IntStream.range(0, count).mapToObj(i ->
+                new BasicSolution("[[0,0], [0,10], [10,10], [10,0]]", i % 2 == 0 ? "[5,5]" : "[15,5]"));
+    }
+
+    @Test
+    public void testOrderedStreamOnVirtualThreads() {
+        try (SolvableExecutor executor = SolvableExecutor.virtualThreads(32)) {
+            List<Boolean> results = executor.solveOrdered(alternatingJobs(2000)).toList();
+            assertEquals(2000, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0, results.get(i), "Out of order at job " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testOrderedStreamOnForkJoinPool() {
+        try (SolvableExecutor executor = SolvableExecutor.forkJoin(4, 16)) {
+            assertEquals(1000, executor.solveOrdered(alternatingJobs(2000)).filter(Boolean::booleanValue).count());
+        }
+    }
+
+    @Test
+    public void testInFlightWorkIsBounded() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (SolvableExecutor executor = SolvableExecutor.virtualThreads(4)) {
+            List<Integer> results = executor.solveOrdered(IntStream.range(0, 200).mapToObj(i -> (Solvable<Integer>) () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.yield();
+                running.decrementAndGet();
+                return i;
+            })).toList();
+            assertEquals(IntStream.range(0, 200).boxed().toList(), results);
+        }
+        assertTrue(peak.get() <= 4, "peak " + peak.get());
+
+        CountDownLatch release = new CountDownLatch(1);
+        try (SolvableExecutor executor = SolvableExecutor.forkJoin(2, 2)) {
+            CompletableFuture<Boolean> first = executor.submit(() -> await(release));
+            CompletableFuture<Boolean> second = executor.submit(() -> await(release));
+            assertEquals(2, executor.inFlight());
+            release.countDown();
+            assertTrue(first.get() && second.get());
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            latch.await();
+            return true;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void testFailuresCompleteExceptionally() {
+        try (SolvableExecutor executor = SolvableExecutor.virtualThreads(8)) {
+            CompletableFuture<Boolean> future = executor.submit(() -> new GeneralSolution("[[0,0]]", "[x]").solve());
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            // a failed job gives its slot back
+            assertTrue(executor.submit(() -> true).join());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.properclever.pir.util;
+
+import com.properclever.pir.domain.FloatPointBatch;
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.OrthogonalRectangle;
+import com.properclever.pir.domain.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBatchKernels {
+
+    // odd length so the vector loop leaves a scalar tail; integer coordinates hit the edges exactly
+    private static final int N = 1003;
+
+    private static double[] randomCoordinates(Random random) {
+        double[] values = new double[N];
+        for (int i = 0; i < N; i++) {
+            values[i] = i % 3 == 0 ? random.nextInt(12) - 1 : random.nextDouble() * 12 - 1;
+        }
+        return values;
+    }
+
+    @Test
+    public void testVectorKernelIsSelectedWhenModulePresent() {
+        // surefire runs with --add-modules jdk.incubator.vector
+        assertTrue(BatchKernels.isVectorized());
+    }
+
+    @Test
+    public void testOrthogonalKernelsAgree() {
+        Random random = new Random(17);
+        double[] xs = randomCoordinates(random);
+        double[] ys = randomCoordinates(random);
+
+        BitSet scalar = new BitSet(N);
+        BatchKernels.scalar().containsAllOrthogonal(0, 0, 10, 5, xs, ys, scalar);
+        // start from all ones to check that outside points are cleared
+        BitSet vector = new BitSet(N);
+        vector.set(0, N);
+        new VectorBatchKernel().containsAllOrthogonal(0, 0, 10, 5, xs, ys, vector);
+
+        assertEquals(scalar, vector);
+        for (int i = 0; i < N; i++) {
+            boolean expected = xs[i] > 0 && xs[i] < 10 && ys[i] > 0 && ys[i] < 5;
+            assertEquals(expected, scalar.get(i), "Mismatch at index " + i);
+        }
+    }
+
+    @Test
+    public void testGeneralKernelsAgree() {
+        Random random = new Random(23);
+        double[] xs = randomCoordinates(random);
+        double[] ys = randomCoordinates(random);
+        // both windings of the same rotated rectangle
+        List<GeneralRectangle> rectangles = List.of(
+                new GeneralRectangle(List.of(new Point(0, 4), new Point(8, 10), new Point(11, 6), new Point(3, 0))),
+                new GeneralRectangle(List.of(new Point(3, 0), new Point(11, 6), new Point(8, 10), new Point(0, 4))));
+
+        for (GeneralRectangle rectangle : rectangles) {
+            BitSet scalar = new BitSet(N);
+            BatchKernels.scalar().containsAllGeneral(rectangle.getKernel(), xs, ys, scalar);
+            BitSet vector = new BitSet(N);
+            vector.set(0, N);
+            new VectorBatchKernel().containsAllGeneral(rectangle.getKernel(), xs, ys, vector);
+
+            assertEquals(scalar, vector);
+            for (int i = 0; i < N; i++) {
+                assertEquals(rectangle.contains(new Point(xs[i], ys[i])), vector.get(i), "Mismatch at index " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testFloatOrthogonalKernelsAreExact() {
+        Random random = new Random(29);
+        // bounds that are not floats, and floats either side of each
+        double[] bounds = {0.1, 0.3, 7.7, 4.9};
+        // spare capacity past size(), which the kernels must not look at
+        FloatPointBatch batch = FloatPointBatch.allocate(N + 7);
+        for (int i = 0; i < N; i++) {
+            batch.add(nearFloat(random, bounds[random.nextInt(2) * 2]), nearFloat(random, bounds[random.nextInt(2) * 2 + 1]));
+        }
+        OrthogonalRectangle rectangle = new OrthogonalRectangle(List.of(new Point(0.1, 0.3), new Point(7.7, 0.3),
+                new Point(7.7, 4.9), new Point(0.1, 4.9), new Point(0.1, 0.3)));
+
+        BitSet scalar = new BitSet(N);
+        BatchKernels.scalar().containsAllOrthogonal(0.1, 0.3, 7.7, 4.9, batch.xArray(), batch.yArray(), batch.size(), scalar);
+        BitSet vector = new BitSet(N);
+        vector.set(0, N);
+        new VectorBatchKernel().containsAllOrthogonal(0.1, 0.3, 7.7, 4.9, batch.xArray(), batch.yArray(), batch.size(), vector);
+        BitSet shape = new BitSet(N);
+        rectangle.containsAll(batch, shape);
+
+        assertEquals(scalar, vector);
+        assertEquals(scalar, shape);
+        for (int i = 0; i < N; i++) {
+            assertEquals(rectangle.contains(batch.x(i), batch.y(i)), scalar.get(i), "Mismatch at index " + i);
+        }
+        assertTrue(scalar.cardinality() > 0 && scalar.cardinality() < N);
+    }
+
+    @Test
+    public void testFloatGeneralKernelsAreExact() {
+        // a rotated rectangle away from the origin, so float rounding matters; points on and near its edges
+        double ox = 1000.125, oy = -2000.25;
+        GeneralRectangle rectangle = new GeneralRectangle(List.of(new Point(ox, oy), new Point(ox + 3, oy + 4),
+                new Point(ox - 1, oy + 7), new Point(ox - 4, oy + 3)));
+        Random random = new Random(31);
+        FloatPointBatch batch = FloatPointBatch.allocate(N);
+        for (int i = 0; i < N; i++) {
+            Point a = rectangle.getCoordinates().get(i % 4);
+            Point b = rectangle.getCoordinates().get(i % 4 + 1);
+            double t = random.nextDouble() * 1.2 - 0.1;
+            double x = a.x() + t * (b.x() - a.x());
+            double y = a.y() + t * (b.y() - a.y());
+            if (i % 5 == 0) {
+                // somewhere in or around the rectangle
+                x = ox - 5 + random.nextDouble() * 9;
+                y = oy - 1 + random.nextDouble() * 9;
+            }
+            batch.add(nearFloat(random, x), nearFloat(random, y));
+        }
+
+        BitSet scalar = new BitSet(N);
+        BatchKernels.scalar().containsAllGeneral(rectangle.getKernel(), batch.xArray(), batch.yArray(), batch.size(), scalar);
+        BitSet vector = new BitSet(N);
+        vector.set(0, N);
+        new VectorBatchKernel().containsAllGeneral(rectangle.getKernel(), batch.xArray(), batch.yArray(), batch.size(), vector);
+        BitSet shape = new BitSet(N);
+        rectangle.containsAll(batch, shape);
+
+        assertEquals(scalar, vector);
+        assertEquals(scalar, shape);
+        for (int i = 0; i < N; i++) {
+            assertEquals(rectangle.getKernel().contains(batch.x(i), batch.y(i)), scalar.get(i), "Mismatch at index " + i);
+        }
+        assertTrue(scalar.cardinality() > 0 && scalar.cardinality() < N);
+    }
+
+    // the float nearest to value, or one either side of it
+    private static float nearFloat(Random random, double value) {
+        float rounded = (float) value;
+        return switch (random.nextInt(3)) {
+            case 0 -> Math.nextDown(rounded);
+            case 1 -> rounded;
+            default -> Math.nextUp(rounded);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.properclever.pir.util;
+
+import com.properclever.pir.solution.BasicSolution;
+import com.properclever.pir.solution.GeneralSolution;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDiagnostics {
+
+    private CountingDiagnosticsSink sink;
+
+    @BeforeEach
+    public void installSink() {
+        sink = new CountingDiagnosticsSink();
+        Diagnostics.setSink(sink);
+    }
+
+    @AfterEach
+    public void removeSink() {
+        Diagnostics.setSink(DiagnosticsSink.NONE);
+    }
+
+    @Test
+    public void testOrthogonalReasons() {
+        assertFalse(new BasicSolution("[[1,1], [2,7], [10,7], [9,1]]", "[8,2]").solve());
+        assertFalse(new BasicSolution("[[0,0], [1,1], [2,2]]", "[1,1]").solve());
+        assertFalse(new BasicSolution("[[0,0], [4,0], [2,0], [2,2], [0,2]]", "[1,1]").solve());
+        assertTrue(new BasicSolution("[[1,1], [1,3], [3,3], [5,3], [5,2], [5,1]]", "[4,2]").solve());
+
+        assertEquals(1, sink.getRejected(RejectionReason.NOT_AXIS_ALIGNED));
+        assertEquals(1, sink.getRejected(RejectionReason.TOO_FEW_UNIQUE_POINTS));
+        assertEquals(1, sink.getRejected(RejectionReason.BACKTRACK));
+        assertEquals(1, sink.getAccepted());
+    }
+
+    @Test
+    public void testGeneralReasons() {
+        assertFalse(new GeneralSolution("[[3.5, 1.2], [1.9, 3.8], [4.0, 7.9], [8.1, 6.1], [7.4, 2.5]]", "[5,5]").solve());
+        assertFalse(new GeneralSolution("[[0,0], [2,0], [1,0], [1,1]]", "[1,1]").solve());
+        assertFalse(new GeneralSolution("[[0,0], [0,0], [1,0], [1,1]]", "[1,1]").solve());
+        assertTrue(new GeneralSolution("[[0,4], [4,7], [7,3], [3,0]]", "[2,5]").solve());
+
+        assertEquals(1, sink.getRejected(RejectionReason.NOT_RIGHT_ANGLE));
+        assertEquals(1, sink.getRejected(RejectionReason.BACKTRACK));
+        assertEquals(1, sink.getRejected(RejectionReason.ZERO_LENGTH_SEGMENT));
+        assertEquals(1, sink.getAccepted());
+        assertEquals(3, sink.getRejectedCounts().values().stream().mapToLong(Long::longValue).sum());
+    }
+}
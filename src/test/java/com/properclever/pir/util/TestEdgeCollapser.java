@@ -0,0 +1,118 @@
+package com.properclever.pir.util;
+
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.Shapes;
+import com.properclever.pir.domain.ValidationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEdgeCollapser {
+
+    @Test
+    public void testLimitKeepsTheBufferSmall() {
+        // a staircase: every turn is a right angle, but it has far too many corners
+        PointBuffer stairs = PointBuffer.allocate(0);
+        for (int i = 0; i < 1000; i++) {
+            stairs.add(i, i);
+            stairs.add(i + 1, i);
+        }
+        stairs.add(1000, 1000);
+        stairs.add(0, 1000);
+        PointBuffer collapsed = PointBuffer.allocate(EdgeCollapser.RECTANGLE_LIMIT);
+        assertNull(EdgeCollapser.collapse(stairs, collapsed, EdgeCollapser.RECTANGLE_LIMIT));
+        assertEquals(EdgeCollapser.RECTANGLE_LIMIT, collapsed.size());
+        assertEquals(new ValidationResult.Rejected<>(RejectionReason.WRONG_VERTEX_COUNT), Shapes.tryGeneral(stairs));
+
+        // stops at the first bad turn
+        stairs.set(3, 5, 2);
+        assertEquals(RejectionReason.NOT_RIGHT_ANGLE, EdgeCollapser.collapse(stairs, PointBuffer.allocate(8), 8));
+        assertThrows(IllegalArgumentException.class, () -> EdgeCollapser.collapse(stairs, collapsed, 1));
+    }
+
+    @Test
+    public void testSameVerdictsAsCollapsingEverything() {
+        GeneralGeomTools tools = new GeneralGeomTools();
+        Random random = new Random(7);
+        for (int trial = 0; trial < 100_000; trial++) {
+            List<Point> points = randomShape(random);
+            List<Point> collapsed = new ArrayList<>();
+            RejectionReason reason = EdgeCollapser.collapse(points, collapsed);
+            List<Point> corners = reason == null ? tools.findFourCorners(collapsed) : null;
+            if (reason == null && corners == null) {
+                reason = RejectionReason.WRONG_VERTEX_COUNT;
+            }
+
+            ValidationResult<GeneralRectangle> fused = Shapes.tryGeneral(points);
+            switch (fused) {
+                case ValidationResult.Valid<GeneralRectangle>(GeneralRectangle rectangle) -> {
+                    assertNull(reason, points.toString());
+                    assertEquals(corners, rectangle.getCoordinates().subList(0, 4), points.toString());
+                }
+                case ValidationResult.Rejected<GeneralRectangle>(RejectionReason rejected) ->
+                        assertEquals(reason, rejected, points.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testIntegralShapesAreJudgedExactly() {
+        // near 2^30 a unit step is within the relative tolerance of zero length, but on the grid it is a real edge
+        double o = 1_000_000_000;
+        List<Point> unitSquare = List.of(new Point(o, o), new Point(o + 1, o), new Point(o + 1, o + 1), new Point(o, o + 1));
+        assertTrue(Shapes.tryGeneral(unitSquare).isValid());
+        // cos of the first turn is about 1e-10, square within the tolerance but not on the grid
+        List<Point> skewed = List.of(new Point(0, 0), new Point(100_000, 1), new Point(99_999, 100_002), new Point(-1, 100_001));
+        assertEquals(new ValidationResult.Rejected<>(RejectionReason.NOT_RIGHT_ANGLE), Shapes.tryGeneral(skewed));
+        // the same shape halved is not integral, so the tolerant path takes it for a rectangle
+        List<Point> halved = skewed.stream().map(p -> new Point(p.x() / 2, p.y() / 2 + 0.25)).toList();
+        assertTrue(Shapes.tryGeneral(halved).isValid());
+    }
+
+    // walks round a randomly rotated rectangle, sometimes adding mid-edge points, extra laps or a wrong turn
+    private static List<Point> randomShape(Random random) {
+        int a = 1 + random.nextInt(4);
+        int b = random.nextInt(4);
+        int length = 1 + random.nextInt(3);
+        int width = 1 + random.nextInt(3);
+        // perpendicular integer edge vectors (a, b) and (-b, a)
+        double[][] edges = {{a * length, b * length}, {-b * width, a * width}, {-a * length, -b * length}, {b * width, -a * width}};
+        if (random.nextBoolean()) {
+            for (double[] edge : edges) {
+                edge[0] = -edge[0];
+            }
+        }
+        List<Point> points = new ArrayList<>();
+        double x = random.nextInt(5);
+        double y = random.nextInt(5);
+        int turns = 4 + (random.nextInt(6) == 0 ? random.nextInt(6) : 0);
+        int start = random.nextInt(4);
+        for (int i = 0; i < turns; i++) {
+            double[] edge = edges[(start + i) % 4];
+            points.add(new Point(x, y));
+            if (random.nextInt(4) == 0) {
+                // a mid-edge point, or a step back along the edge
+                double t = random.nextInt(5) == 0 ? -0.5 : 0.5;
+                points.add(new Point(x + edge[0] * t, y + edge[1] * t));
+            }
+            x += edge[0];
+            y += edge[1];
+            if (random.nextInt(20) == 0) {
+                x += random.nextInt(3) - 1;
+            }
+        }
+        if (random.nextBoolean()) {
+            points.add(new Point(x, y));
+        }
+        if (random.nextInt(10) == 0) {
+            points.add(points.get(random.nextInt(points.size())));
+        }
+        return points;
+    }
+}
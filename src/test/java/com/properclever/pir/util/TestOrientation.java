@@ -0,0 +1,154 @@
+package com.properclever.pir.util;
+
+import com.properclever.pir.domain.GeneralRectangle;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.Shapes;
+import com.properclever.pir.domain.ValidationResult;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestOrientation {
+
+    // the determinant evaluated in exact decimal arithmetic
+    private static int exactSign(double ax, double ay, double bx, double by, double cx, double cy) {
+        BigDecimal left = new BigDecimal(ax).subtract(new BigDecimal(cx)).multiply(new BigDecimal(by).subtract(new BigDecimal(cy)));
+        BigDecimal right = new BigDecimal(ay).subtract(new BigDecimal(cy)).multiply(new BigDecimal(bx).subtract(new BigDecimal(cx)));
+        return left.subtract(right).signum();
+    }
+
+    @Test
+    public void testSigns() {
+        assertEquals(1, Orientation.orient2d(0, 0, 1, 0, 0, 1));
+        assertEquals(-1, Orientation.orient2d(0, 0, 1, 0, 0, -1));
+        assertEquals(0, Orientation.orient2d(0, 0, 1, 1, 3, 3));
+    }
+
+    @Test
+    public void testNearlyCollinearPointsAreExact() {
+        // points a few ulps either side of the line through two far-apart points, where the plain double
+        // determinant often gets the sign wrong
+        Random random = new Random(3);
+        for (int trial = 0; trial < 20_000; trial++) {
+            double ax = 0.5 + random.nextInt(1000), ay = ax;
+            double bx = 1e7 + random.nextInt(1000), by = bx;
+            double cx = 12 + random.nextInt(1000) * 0.1;
+            double cy = cx;
+            for (int ulps = random.nextInt(4); ulps > 0; ulps--) {
+                cy = random.nextBoolean() ? Math.nextUp(cy) : Math.nextDown(cy);
+            }
+            assertEquals(exactSign(ax, ay, bx, by, cx, cy), Integer.signum(Orientation.orient2d(ax, ay, bx, by, cx, cy)),
+                    "%s %s %s %s %s %s".formatted(ax, ay, bx, by, cx, cy));
+        }
+    }
+
+    @Test
+    public void testBoundaryPointsFarFromTheOrigin() {
+        // a rotated rectangle in projected-metre coordinates, with corners on a 2^-10 grid
+        double ox = 4_512_345.25, oy = 5_701_234.5;
+        GeneralRectangle rectangle = Shapes.tryGeneral(List.of(new Point(ox, oy), new Point(ox + 300, oy + 400),
+                        new Point(ox - 100, oy + 700), new Point(ox - 400, oy + 300)))
+                .orElseThrow(reason -> new IllegalStateException(reason.name()));
+        GeneralRectangleKernel kernel = rectangle.getKernel();
+        Random random = new Random(11);
+        int n = 4096;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            // a point on an edge (exactly representable), then nudged by at most a couple of ulps
+            double t = random.nextInt(1 << 10) / (double) (1 << 10);
+            Point a = rectangle.getCoordinates().get(i % 4);
+            Point b = rectangle.getCoordinates().get(i % 4 + 1);
+            double x = a.x() + t * (b.x() - a.x());
+            double y = a.y() + t * (b.y() - a.y());
+            xs[i] = random.nextInt(3) == 0 ? x : random.nextBoolean() ? Math.nextUp(x) : Math.nextDown(x);
+            ys[i] = random.nextInt(3) == 0 ? y : random.nextBoolean() ? Math.nextUp(y) : Math.nextDown(y);
+        }
+        BitSet scalar = new BitSet(n);
+        BatchKernels.scalar().containsAllGeneral(kernel, xs, ys, scalar);
+        BitSet batch = new BitSet(n);
+        rectangle.containsAll(xs, ys, batch);
+        int inside = 0;
+        for (int i = 0; i < n; i++) {
+            boolean expected = true;
+            List<Point> corners = rectangle.getCoordinates();
+            for (int k = 0; k < 4; k++) {
+                // the input winds counterclockwise, so inside is strictly left of every edge
+                expected &= exactSign(corners.get(k).x(), corners.get(k).y(), corners.get(k + 1).x(), corners.get(k + 1).y(), xs[i], ys[i]) > 0;
+            }
+            assertEquals(expected, kernel.contains(xs[i], ys[i]), "point " + i);
+            assertEquals(expected, scalar.get(i), "scalar kernel, point " + i);
+            assertEquals(expected, batch.get(i), "batch kernel, point " + i);
+            inside += expected ? 1 : 0;
+        }
+        // the nudges go both ways, so both answers turn up
+        assertTrue(inside > 0 && inside < n);
+    }
+
+    @Test
+    public void testIntegerOverloadAgreesWithTheExactSign() {
+        Random random = new Random(5);
+        long max = (long) Orientation.MAX_EXACT_INTEGER - 1;
+        for (int trial = 0; trial < 20_000; trial++) {
+            // extreme corners often, so the products come close to overflowing
+            long[] c = new long[6];
+            for (int k = 0; k < 6; k++) {
+                c[k] = random.nextInt(3) == 0 ? (random.nextBoolean() ? max : -max) : random.nextLong(-max, max + 1);
+            }
+            if (random.nextBoolean()) {
+                // make c collinear with a and b
+                c[4] = c[0];
+                c[5] = c[1];
+            }
+            assertEquals(exactSign(c[0], c[1], c[2], c[3], c[4], c[5]), Orientation.orient2d(c[0], c[1], c[2], c[3], c[4], c[5]));
+            assertEquals(Orientation.orient2d((double) c[0], c[1], c[2], c[3], c[4], c[5]), Orientation.orient2d(c[0], c[1], c[2], c[3], c[4], c[5]));
+        }
+        assertTrue(Orientation.isExactInteger(-max));
+        assertFalse(Orientation.isExactInteger(Orientation.MAX_EXACT_INTEGER));
+        assertFalse(Orientation.isExactInteger(0.5));
+        assertFalse(Orientation.isExactInteger(Double.NaN));
+    }
+
+    @Test
+    public void testIntegralKernelMatchesTheDoublePath() {
+        // microdegree corners; integer queries take the long path, the nudged ones the double path
+        GeneralRectangleKernel kernel = new GeneralRectangleKernel(-73_985_000, 40_748_000, -73_982_000, 40_752_000,
+                -73_986_000, 40_755_000, -73_989_000, 40_751_000);
+        Random random = new Random(13);
+        for (int trial = 0; trial < 20_000; trial++) {
+            double x = -73_990_000 + random.nextInt(9_000);
+            double y = 40_747_000 + random.nextInt(9_000);
+            if (random.nextInt(4) == 0) {
+                x = random.nextBoolean() ? Math.nextUp(x) : Math.nextDown(x);
+            }
+            boolean expected = exactSign(kernel.x0, kernel.y0, kernel.x1, kernel.y1, x, y) > 0
+                    && exactSign(kernel.x1, kernel.y1, kernel.x2, kernel.y2, x, y) > 0
+                    && exactSign(kernel.x2, kernel.y2, kernel.x3, kernel.y3, x, y) > 0
+                    && exactSign(kernel.x3, kernel.y3, kernel.x0, kernel.y0, x, y) > 0;
+            assertEquals(expected, kernel.contains(x, y), x + " " + y);
+        }
+    }
+
+    @Test
+    public void testCollapserToleranceIsRelative() {
+        List<Point> rectangle = List.of(new Point(0, 4), new Point(4, 7), new Point(7, 3), new Point(3, 0));
+        List<Point> skewed = List.of(new Point(0, 4), new Point(4, 7), new Point(7, 3.001), new Point(3, 0));
+        // (scale, offset) pairs; the offsets leave the coordinates exact
+        double[][] transforms = {{1e-6, 0}, {1, 0}, {1e6, 0}, {1, 1e7}, {1e6, 1e9}};
+        for (double[] transform : transforms) {
+            String name = transform[0] + " " + transform[1];
+            assertTrue(Shapes.tryGeneral(transform(rectangle, transform[0], transform[1])).isValid(), name);
+            assertEquals(new ValidationResult.Rejected<>(RejectionReason.NOT_RIGHT_ANGLE),
+                    Shapes.tryGeneral(transform(skewed, transform[0], transform[1])), name);
+        }
+    }
+
+    private static List<Point> transform(List<Point> points, double scale, double offset) {
+        return points.stream().map(p -> new Point(p.x() * scale + offset, p.y() * scale + offset)).toList();
+    }
+}
@@ -0,0 +1,170 @@
+package com.properclever.pir.util;
+
+import com.properclever.pir.domain.BoundingBox;
+import com.properclever.pir.domain.Point;
+import com.properclever.pir.domain.PointBuffer;
+import com.properclever.pir.domain.UnknownShape;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestOrthogonalGeomTools {
+
+    private final OrthogonalGeomTools tools = new OrthogonalGeomTools();
+
+    @Test
+    public void testReasons() {
+        assertEquals(RejectionReason.NULL_OR_EMPTY, tools.validate(PointBuffer.allocate(0)));
+        assertEquals(RejectionReason.TOO_FEW_UNIQUE_POINTS, validate("[[0,0], [1,0], [1,1], [0,0], [1,1]]"));
+        assertEquals(RejectionReason.DEGENERATE_BOUNDS, validate("[[0,0], [1,0], [2,0], [3,0]]"));
+        assertEquals(RejectionReason.NOT_AXIS_ALIGNED, validate("[[1,1], [3,3], [1,3], [3,1]]"));
+        assertEquals(RejectionReason.OFF_BOUNDING_BOX, validate("[[0,0], [0,2], [1,2], [1,1], [2,1], [2,0]]"));
+        assertEquals(RejectionReason.BACKTRACK, validate("[[0,0], [4,0], [2,0], [2,2], [0,2]]"));
+        assertEquals(RejectionReason.WRONG_VERTEX_COUNT, validate("[[0,0], [0,2], [2,2], [2,0], [0,0], [0,2], [2,2], [2,0]]"));
+        assertNull(validate("[[1,1], [1,3], [3,3], [3,1]]"));
+        assertNull(validate("[[1,1], [1,3], [3,3], [5,3], [5,2], [5,1]]"));
+        // a zero-length segment counts as a downward vertical one
+        assertNull(validate("[[0,0], [0,2], [2,2], [2,2], [2,0]]"));
+        // starting mid-edge with five points rejects as it always has
+        assertEquals(RejectionReason.WRONG_VERTEX_COUNT, validate("[[1,0], [0,0], [0,2], [2,2], [2,0]]"));
+    }
+
+    private RejectionReason validate(String shape) {
+        return tools.validate(PointStringParser.parsePointBuffer(shape));
+    }
+
+    @Test
+    public void testSameVerdictsAsTheMultiPassValidator() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 200_000; trial++) {
+            List<Point> points = randomShape(random);
+            assertEquals(ReferenceValidator.firstRejection(points), tools.validate(points), points.toString());
+        }
+    }
+
+    // mostly walks along grid lines (so many are rectangles or nearly so), with the odd diagonal or signed zero
+    private static List<Point> randomShape(Random random) {
+        int n = 1 + random.nextInt(9);
+        List<Point> points = new ArrayList<>();
+        double x = random.nextInt(3);
+        double y = random.nextInt(3);
+        for (int i = 0; i < n; i++) {
+            points.add(new Point(x, y));
+            switch (random.nextInt(10)) {
+                case 0 -> x = random.nextInt(4);
+                case 1 -> y = random.nextInt(4);
+                case 2 -> {
+                    x = random.nextInt(4);
+                    y = random.nextInt(4);
+                }
+                case 3 -> x = x == 0 ? -0.0 : x;
+                default -> {
+                    if (random.nextBoolean()) {
+                        x = random.nextInt(4);
+                    } else {
+                        y = random.nextInt(4);
+                    }
+                }
+            }
+        }
+        if (random.nextInt(3) == 0) {
+            points.add(points.getFirst());
+        }
+        return points;
+    }
+
+    /** The original multi-pass validator, kept as the oracle for the fused one. */
+    private static final class ReferenceValidator {
+
+        static RejectionReason firstRejection(List<Point> points) {
+            if (points == null || points.isEmpty()) {
+                return RejectionReason.NULL_OR_EMPTY;
+            }
+            if (new HashSet<>(points).size() < 4) {
+                return RejectionReason.TOO_FEW_UNIQUE_POINTS;
+            }
+            BoundingBox bbox = new UnknownShape(points).getBoundingBox();
+            if (bbox.dimensions() != 2) {
+                return RejectionReason.DEGENERATE_BOUNDS;
+            }
+            List<Point> closedPoints = new ArrayList<>(points);
+            if (!points.getFirst().equals(points.getLast())) {
+                closedPoints.add(points.getFirst());
+            }
+            for (int i = 0; i < closedPoints.size() - 1; i++) {
+                Point current = closedPoints.get(i);
+                Point next = closedPoints.get(i + 1);
+                if (next.x() - current.x() != 0 && next.y() - current.y() != 0) {
+                    return RejectionReason.NOT_AXIS_ALIGNED;
+                }
+                if (!(current.x() == bbox.minPoint().x() || current.x() == bbox.maxPoint().x()
+                        || current.y() == bbox.minPoint().y() || current.y() == bbox.maxPoint().y())) {
+                    return RejectionReason.OFF_BOUNDING_BOX;
+                }
+            }
+            List<Point> vertices = extractVertices(closedPoints);
+            if (vertices == null) {
+                return RejectionReason.BACKTRACK;
+            }
+            if (vertices.size() != 4) {
+                return RejectionReason.WRONG_VERTEX_COUNT;
+            }
+            List<Point> clockwise = bbox.getBoundingPoints();
+            List<Point> anticlockwise = new ArrayList<>(clockwise);
+            Collections.reverse(anticlockwise);
+            return isCyclicRotation(vertices, clockwise) || isCyclicRotation(vertices, anticlockwise) ? null : RejectionReason.BOWTIE;
+        }
+
+        private static List<Point> extractVertices(List<Point> closedPoints) {
+            List<Point> vertices = new ArrayList<>();
+            vertices.add(closedPoints.get(0));
+            double initialDx = closedPoints.get(1).x() - closedPoints.get(0).x();
+            double initialDy = closedPoints.get(1).y() - closedPoints.get(0).y();
+            String prevDir = (Math.abs(initialDx) > 0 ? "H" : "V");
+            int prevSign = (prevDir.equals("H") ? (initialDx > 0 ? 1 : -1) : (initialDy > 0 ? 1 : -1));
+            for (int i = 1; i < closedPoints.size() - 1; i++) {
+                Point current = closedPoints.get(i);
+                Point next = closedPoints.get(i + 1);
+                double dx = next.x() - current.x();
+                double dy = next.y() - current.y();
+                String currDir = (Math.abs(dx) > 0 ? "H" : "V");
+                int currSign = (currDir.equals("H") ? (dx > 0 ? 1 : -1) : (dy > 0 ? 1 : -1));
+                if (currDir.equals(prevDir)) {
+                    if (currSign != prevSign) {
+                        return null;
+                    }
+                } else {
+                    if (!vertices.getLast().equals(current)) {
+                        vertices.add(current);
+                    }
+                    prevDir = currDir;
+                    prevSign = currSign;
+                }
+            }
+            if (vertices.size() > 1 && vertices.getFirst().equals(vertices.getLast())) {
+                vertices.removeLast();
+            }
+            return vertices;
+        }
+
+        private static boolean isCyclicRotation(List<Point> a, List<Point> b) {
+            int n = a.size();
+            for (int shift = 0; shift < n; shift++) {
+                boolean match = true;
+                for (int i = 0; i < n && match; i++) {
+                    match = a.get(i).equals(b.get((i + shift) % n));
+                }
+                if (match) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -52,6 +52,26 @@ public class TestPointStringParser {
         assertTrue(exception.getMessage().contains("Input string is null or empty"));
     }
 
+    @Test
+    public void testParsePoint_numberForms() {
+        // fraction-only, explicit sign, and more digits than fit the fast path
+        Point point = PointStringParser.parsePoint("[+.5,-0.125]");
+        assertEquals(0.5, point.x());
+        assertEquals(-0.125, point.y());
+
+        Point precise = PointStringParser.parsePoint("[3.14159265358979323846, 123456789012345678]");
+        assertEquals(Double.parseDouble("3.14159265358979323846"), precise.x());
+        assertEquals(Double.parseDouble("123456789012345678"), precise.y());
+    }
+
+    @Test
+    public void testParsePoint_invalidFormat_trailingDot() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                PointStringParser.parsePoint("[1., 2]")
+        );
+        assertTrue(exception.getMessage().contains("Input does not match expected point format"));
+    }
+
     // Tests for parsePointArray()
 
     @Test
@@ -119,6 +139,28 @@ public class TestPointStringParser {
     }
 
 
+    @Test
+    public void testParsePointArray_manyPairs() {
+        // more pairs than the scanner's initial capacity
+        StringBuilder input = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            input.append(i == 0 ? "" : ", ").append("[").append(i).append(",").append(-i).append(".5]");
+        }
+        List<Point> points = PointStringParser.parsePointArray(input.append("]").toString());
+        assertEquals(100, points.size());
+        assertEquals(new Point(99, -99.5), points.getLast());
+    }
+
+    @Test
+    public void testParsePointArray_invalidPairInList() {
+        // a pair that doesn't parse is reported as a bad separator before the next valid pair
+        String input = "[[0,0], [a,b], [1,1]]";
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                PointStringParser.parsePointArray(input)
+        );
+        assertTrue(exception.getMessage().contains("Invalid separator between coordinate pairs: ', [a,b],'"));
+    }
+
     @Test
     public void testParsePointArray_nullInput() {
         Exception exception = assertThrows(IllegalArgumentException.class, () ->